@@ -0,0 +1,480 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Cross-sprint regression benchmark for the task stores of Sprint 3, 4 and 5
+ * Usage: java SprintRegressionBenchmark [--sizes 100,1000,10000] [--seed 42] [--source-dir .]
+ *
+ * All three sprints declare top-level classes with the same names (Task, TaskDAO, ...),
+ * so each TodoManagerSprintN.java is compiled into its own directory at startup and
+ * loaded by its own class loader. Adapters then reach each generation's DAO through
+ * method handles, and every generation gets the same seeded workload.
+ *
+ * For each operation, store size and sprint it reports throughput, latency percentiles
+ * and bytes allocated per call. Operations a sprint doesn't have are shown as n/a.
+ * Requires a JDK (the system Java compiler) at runtime.
+ */
+public class SprintRegressionBenchmark {
+    private static final long WARMUP_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long MEASURE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_CALLS = 200_000;    // Per measurement, also bounds how far add grows a store
+    private static final int SPARE_CAPACITY = 2 * MAX_CALLS + 16; // Sprint 3/4 stores have a fixed size
+    private static final String[] OPERATIONS = {"addTask", "getTaskById", "searchTasks", "getTasksByAssignee",
+        "sortTasks", "checkDuplicates", "updateTask", "deleteTask"};
+    
+    private static final PrintStream OUT = System.out; // Sprint 3/4 checkDuplicates print, the real output goes here
+    
+    /**
+     * One sprint's task store, reached through method handles
+     * Every handle takes the DAO as an Object first; a null handle means the sprint lacks the operation
+     */
+    private static final class Generation {
+        final String name;
+        final MethodHandle create;      // (int capacity) Object
+        final MethodHandle add;         // (Object, String, String, String, LocalDate) boolean
+        final MethodHandle getById;     // (Object, int) Object
+        final MethodHandle search;      // (Object, String) Object[]
+        final MethodHandle byAssignee;  // (Object, String) Object[]
+        final MethodHandle sort;        // (Object) Object[]
+        final MethodHandle duplicates;  // (Object) Object
+        final MethodHandle update;      // (Object, int, String, String, String, LocalDate) boolean
+        final MethodHandle delete;      // (Object, int) boolean
+        
+        /**
+         * sized = the DAO constructor takes a capacity, dated = tasks have a completion date (Sprint 5 API)
+         */
+        Generation(String name, ClassLoader loader, String daoClass, boolean sized, boolean dated,
+                   boolean hasByAssignee, String sortMethod) throws ReflectiveOperationException {
+            Class<?> dao = Class.forName(daoClass, true, loader);
+            
+            MethodHandle constructor = sized
+                ? constructor(dao, int.class)
+                : MethodHandles.dropArguments(constructor(dao), 0, int.class);
+            this.name = name;
+            this.create = constructor.asType(MethodType.methodType(Object.class, int.class));
+            
+            MethodHandle addTask = dated
+                ? method(dao, "addTask", String.class, String.class, String.class, LocalDate.class)
+                : method(dao, "addTask", String.class, String.class, String.class);
+            this.add = withDate(addTask, dated, 4)
+                .asType(MethodType.methodType(boolean.class, Object.class, String.class, String.class, String.class, LocalDate.class));
+            this.getById = method(dao, "getTaskById", int.class)
+                .asType(MethodType.methodType(Object.class, Object.class, int.class));
+            this.search = method(dao, "searchTasks", String.class)
+                .asType(MethodType.methodType(Object[].class, Object.class, String.class));
+            this.byAssignee = hasByAssignee
+                ? method(dao, "getTasksByAssignee", String.class)
+                    .asType(MethodType.methodType(Object[].class, Object.class, String.class))
+                : null;
+            this.sort = MethodHandles.insertArguments(method(dao, sortMethod, boolean.class), 1, true)
+                .asType(MethodType.methodType(Object[].class, Object.class));
+            this.duplicates = method(dao, "checkDuplicates")
+                .asType(MethodType.methodType(Object.class, Object.class));
+            
+            MethodHandle updateTask = dated
+                ? method(dao, "updateTask", int.class, String.class, String.class, String.class, LocalDate.class)
+                : method(dao, "updateTask", int.class, String.class, String.class, String.class);
+            this.update = withDate(updateTask, dated, 5)
+                .asType(MethodType.methodType(boolean.class, Object.class, int.class, String.class, String.class, String.class, LocalDate.class));
+            this.delete = method(dao, "deleteTask", int.class)
+                .asType(MethodType.methodType(boolean.class, Object.class, int.class));
+        }
+        
+        /**
+         * Handle for a public method of a sprint class
+         * The classes themselves are package-private in another loader's unnamed package,
+         * so access checks are switched off (allowed, the unnamed module is open)
+         */
+        private static MethodHandle method(Class<?> type, String name, Class<?>... parameters) throws ReflectiveOperationException {
+            Method method = type.getMethod(name, parameters);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        }
+        
+        private static MethodHandle constructor(Class<?> type, Class<?>... parameters) throws ReflectiveOperationException {
+            Constructor<?> constructor = type.getConstructor(parameters);
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor);
+        }
+        
+        /**
+         * Sprints before 5 have no completion date - accept one anyway and ignore it
+         */
+        private static MethodHandle withDate(MethodHandle handle, boolean dated, int position) {
+            return dated ? handle : MethodHandles.dropArguments(handle, position, LocalDate.class);
+        }
+    }
+    
+    /**
+     * Seeded task data: Zipf-distributed assignees, verb-object titles, due dates within 90 days
+     */
+    private static final class Workload {
+        private static final String[] VERBS = {"review", "update", "fix", "write", "prepare", "send", "check", "plan", "test", "deploy"};
+        private static final String[] OBJECTS = {"report", "budget", "invoice", "release notes", "meeting agenda",
+            "login page", "backup job", "client email", "test plan", "roadmap", "dashboard", "contract"};
+        private static final String[] FILLER = {"the", "and", "with", "latest", "numbers", "from", "last", "week", "please", "team"};
+        
+        private final Random random;
+        private final double[] userWeights; // Cumulative weights 1 / rank^1.1
+        private final LocalDate today = LocalDate.now();
+        
+        Workload(long seed, int userCount) {
+            random = new Random(seed);
+            userWeights = new double[userCount];
+            double total = 0;
+            for (int rank = 1; rank <= userCount; rank++) {
+                total += 1 / Math.pow(rank, 1.1);
+                userWeights[rank - 1] = total;
+            }
+        }
+        
+        String assignee() {
+            int index = Arrays.binarySearch(userWeights, random.nextDouble() * userWeights[userWeights.length - 1]);
+            return "user" + (Math.min(index >= 0 ? index : -(index + 1), userWeights.length - 1) + 1);
+        }
+        
+        String title() {
+            return VERBS[random.nextInt(VERBS.length)] + " " + OBJECTS[random.nextInt(OBJECTS.length)];
+        }
+        
+        String description() {
+            StringBuilder text = new StringBuilder(title());
+            for (int i = 6 + random.nextInt(10); i > 0; i--) {
+                text.append(' ').append(FILLER[random.nextInt(FILLER.length)]);
+            }
+            return text.toString();
+        }
+        
+        String keyword() {
+            return OBJECTS[random.nextInt(OBJECTS.length)];
+        }
+        
+        LocalDate dueDate() {
+            return today.plusDays(1 + random.nextInt(90));
+        }
+        
+        int nextInt(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+    
+    /**
+     * One benchmarked call; prepare() runs before it and isn't measured
+     */
+    private interface Call {
+        default void prepare() throws Throwable {
+        }
+        
+        long run() throws Throwable;
+    }
+    
+    /**
+     * A store filled with size tasks, plus the IDs currently in it
+     */
+    private static final class Store {
+        final Generation generation;
+        final Object dao;
+        final Workload workload;
+        final ArrayList<Integer> liveIds = new ArrayList<>();
+        int nextId = 1;
+        
+        Store(Generation generation, int size, long seed) throws Throwable {
+            this.generation = generation;
+            this.dao = generation.create.invokeExact(size + SPARE_CAPACITY);
+            this.workload = new Workload(seed, Math.max(10, size / 100));
+            for (int i = 0; i < size; i++) {
+                addOne();
+            }
+        }
+        
+        void addOne() throws Throwable {
+            boolean added = (boolean) generation.add.invokeExact(dao, workload.title(), workload.description(),
+                                                                  workload.assignee(), workload.dueDate());
+            if (!added) {
+                throw new IllegalStateException(generation.name + " store is full");
+            }
+            liveIds.add(nextId);
+            nextId++;
+        }
+        
+        int randomLiveId() {
+            return liveIds.get(workload.nextInt(liveIds.size()));
+        }
+    }
+    
+    public static void main(String[] args) throws Throwable {
+        int[] sizes = {100, 1_000, 10_000};
+        long seed = 42;
+        Path sourceDirectory = Paths.get(".");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--source-dir":
+                    sourceDirectory = Paths.get(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        
+        LinkedHashMap<String, Generation> generations = new LinkedHashMap<>();
+        generations.put("Sprint 3", new Generation("Sprint 3", load(sourceDirectory, 3), "TaskDAO", true, false, false, "getTasksSorted"));
+        generations.put("Sprint 4", new Generation("Sprint 4", load(sourceDirectory, 4), "TaskDAOImpl", true, false, true, "getTasksSorted"));
+        generations.put("Sprint 5", new Generation("Sprint 5", load(sourceDirectory, 5), "TaskDAOImpl", false, true, true, "getTasksSortedByDate"));
+        
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            OUT.printf("%-19s %7s %-9s %12s %10s %10s %10s %10s %10s%n",
+                "operation", "size", "sprint", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us", "B/op");
+            for (String operation : OPERATIONS) {
+                for (int size : sizes) {
+                    for (Generation generation : generations.values()) {
+                        run(operation, size, seed, generation);
+                    }
+                }
+            }
+        } finally {
+            System.setOut(OUT);
+        }
+        OUT.println("sortTasks is getTasksSorted (by title) in Sprint 3/4 and getTasksSortedByDate in Sprint 5");
+    }
+    
+    /**
+     * Compile TodoManagerSprintN.java into a temporary directory and load it in its own class loader
+     * The parent is the platform loader, so classes on this benchmark's class path can't leak in
+     */
+    private static ClassLoader load(Path sourceDirectory, int sprint) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler available - run this benchmark on a JDK.");
+        }
+        Path source = sourceDirectory.resolve("TodoManagerSprint" + sprint + ".java");
+        Path classes = Files.createTempDirectory("sprint" + sprint + "-classes");
+        classes.toFile().deleteOnExit();
+        int status = compiler.run(null, null, null, "-nowarn", "-encoding", "UTF-8", "-d", classes.toString(), source.toString());
+        if (status != 0) {
+            throw new IllegalStateException("Could not compile " + source);
+        }
+        for (File file : classes.toFile().listFiles()) {
+            file.deleteOnExit();
+        }
+        return new URLClassLoader(new URL[] {classes.toUri().toURL()}, ClassLoader.getPlatformClassLoader());
+    }
+    
+    private static void run(String operation, int size, long seed, Generation generation) throws Throwable {
+        Store store = new Store(generation, size, seed);
+        Call call = call(operation, store);
+        if (call == null) {
+            OUT.printf("%-19s %7d %-9s %12s%n", operation, size, generation.name, "n/a");
+            return;
+        }
+        measure(call, WARMUP_NANOS, null);
+        long[] latencies = new long[MAX_CALLS];
+        long[] allocated = new long[1];
+        int calls = measure(call, MEASURE_NANOS, latencies, allocated);
+        print(operation, size, generation.name, Arrays.copyOf(latencies, calls), allocated[0]);
+    }
+    
+    /**
+     * The call an operation makes on a store, or null if the sprint doesn't have it
+     * Calls that change the store keep its size steady where they can: update touches a
+     * random task, delete removes a random task after adding a replacement (not timed)
+     */
+    private static Call call(String operation, Store store) {
+        Generation generation = store.generation;
+        Workload workload = store.workload;
+        Object dao = store.dao;
+        switch (operation) {
+            case "addTask":
+                return new Call() {
+                    String title;
+                    String text;
+                    String assignee;
+                    LocalDate due;
+                    
+                    public void prepare() {
+                        title = workload.title();
+                        text = workload.description();
+                        assignee = workload.assignee();
+                        due = workload.dueDate();
+                    }
+                    
+                    public long run() throws Throwable {
+                        boolean added = (boolean) generation.add.invokeExact(dao, title, text, assignee, due);
+                        return added ? 1 : 0;
+                    }
+                };
+            case "getTaskById":
+                return new Call() {
+                    int id;
+                    
+                    public void prepare() {
+                        id = store.randomLiveId();
+                    }
+                    
+                    public long run() throws Throwable {
+                        Object task = generation.getById.invokeExact(dao, id);
+                        return task == null ? 0 : 1;
+                    }
+                };
+            case "searchTasks":
+                return new Call() {
+                    String keyword;
+                    
+                    public void prepare() {
+                        keyword = workload.keyword();
+                    }
+                    
+                    public long run() throws Throwable {
+                        Object[] found = (Object[]) generation.search.invokeExact(dao, keyword);
+                        return found.length;
+                    }
+                };
+            case "getTasksByAssignee":
+                if (generation.byAssignee == null) {
+                    return null;
+                }
+                return new Call() {
+                    String assignee;
+                    
+                    public void prepare() {
+                        assignee = workload.assignee();
+                    }
+                    
+                    public long run() throws Throwable {
+                        Object[] found = (Object[]) generation.byAssignee.invokeExact(dao, assignee);
+                        return found.length;
+                    }
+                };
+            case "sortTasks":
+                return () -> ((Object[]) generation.sort.invokeExact(dao)).length;
+            case "checkDuplicates":
+                return () -> generation.duplicates.invokeExact(dao) == null ? 0 : 1;
+            case "updateTask":
+                return new Call() {
+                    int id;
+                    String title;
+                    String text;
+                    String assignee;
+                    LocalDate due;
+                    
+                    public void prepare() {
+                        id = store.randomLiveId();
+                        title = workload.title();
+                        text = workload.description();
+                        assignee = workload.assignee();
+                        due = workload.dueDate();
+                    }
+                    
+                    public long run() throws Throwable {
+                        boolean updated = (boolean) generation.update.invokeExact(dao, id, title, text, assignee, due);
+                        return updated ? 1 : 0;
+                    }
+                };
+            case "deleteTask":
+                return new Call() {
+                    int id;
+                    
+                    public void prepare() throws Throwable {
+                        store.addOne();
+                        int index = workload.nextInt(store.liveIds.size());
+                        id = store.liveIds.get(index);
+                        store.liveIds.set(index, store.liveIds.get(store.liveIds.size() - 1));
+                        store.liveIds.remove(store.liveIds.size() - 1);
+                    }
+                    
+                    public long run() throws Throwable {
+                        boolean deleted = (boolean) generation.delete.invokeExact(dao, id);
+                        return deleted ? 1 : 0;
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+    
+    private static int measure(Call call, long budgetNanos, long[] latencies) throws Throwable {
+        return measure(call, budgetNanos, latencies, null);
+    }
+    
+    /**
+     * Make calls until the time budget or MAX_CALLS runs out, timing each one
+     * latencies (if not null) receives each call's time; allocated[0] (if given) the bytes
+     * this thread allocated inside the timed calls, as far as the JVM can tell
+     */
+    private static int measure(Call call, long budgetNanos, long[] latencies, long[] allocated) throws Throwable {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocation = threads instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().getId();
+        long bytes = 0;
+        long sink = 0;
+        int calls = 0;
+        long end = System.nanoTime() + budgetNanos;
+        while (calls < MAX_CALLS && System.nanoTime() < end) {
+            call.prepare();
+            long allocatedBefore = allocation != null && allocated != null ? allocation.getThreadAllocatedBytes(threadId) : 0;
+            long begin = System.nanoTime();
+            sink += call.run();
+            long elapsed = System.nanoTime() - begin;
+            if (allocation != null && allocated != null) {
+                bytes += allocation.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            }
+            if (latencies != null) {
+                latencies[calls] = elapsed;
+            }
+            calls++;
+        }
+        if (allocated != null) {
+            allocated[0] = allocation != null ? bytes : -1;
+        }
+        if (sink == Long.MIN_VALUE) {
+            OUT.print(""); // Keeps the results alive
+        }
+        return calls;
+    }
+    
+    private static void print(String operation, int size, String sprint, long[] latencies, long allocatedBytes) {
+        long total = 0;
+        for (long latency : latencies) {
+            total += latency;
+        }
+        Arrays.sort(latencies);
+        OUT.printf("%-19s %7d %-9s %12.0f %10.2f %10.2f %10.2f %10.2f %10s%n", operation, size, sprint,
+            latencies.length * 1e9 / total, percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+            percentile(latencies, 0.999) / 1e3, latencies[latencies.length - 1] / 1e3,
+            allocatedBytes < 0 ? "n/a" : String.valueOf(allocatedBytes / latencies.length));
+    }
+    
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -1,7 +1,92 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
 
 // CUSTOM EXCEPTIONS 
 
@@ -47,20 +132,54 @@ class UserException extends Exception {
 
 // USER CLASSES (Inheritance)
 
+/**
+ * User roles - replaces the "client"/"visitor" strings
+ */
+enum UserRole {
+    CLIENT("client"),
+    VISITOR("visitor");
+    
+    private final String name;
+    
+    UserRole(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Lowercase name, as shown in the menus and stored in the data files
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Role for a type name in any case, or null if there is no such role
+     */
+    static UserRole fromName(String name) {
+        for (UserRole role : values()) {
+            if (role.name.equalsIgnoreCase(name)) {
+                return role;
+            }
+        }
+        return null;
+    }
+}
+
 /**
  * Parent User class
  * Contains common properties for all users
  */
 class User {
     private String username;
-    private String password;
-    private String userType; // "client" or "visitor"
-    
+    private String password;     // Plain text, null once only the hash is kept
+    private String passwordHash; // Salted hash (see PasswordHash), or null
+    private UserRole role;       // CLIENT or VISITOR
+     
      //Constructor for User
-    public User(String username, String password, String userType) {
+    public User(String username, String password, UserRole role) {
         this.username = username;
         this.password = password;
-        this.userType = userType;
+        this.role = role;
     }
     
     // Getter methods to access private fields
@@ -68,12 +187,34 @@ class User {
         return username;
     }
     
-    public String getPassword() {
-        return password;
+    /**
+     * Whether a login password is this user's
+     */
+    public boolean checkPassword(String candidate) {
+        return password != null ? password.equals(candidate) : PasswordHash.matches(candidate, passwordHash);
+    }
+    
+    String getPasswordHash() {
+        return passwordHash;
+    }
+    
+    /**
+     * Keep only the salted hash of the password, forgetting the plain text
+     */
+    void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+        this.password = null;
+    }
+    
+    public UserRole getRole() {
+        return role;
     }
     
+    /**
+     * Role name ("client" or "visitor")
+     */
     public String getUserType() {
-        return userType;
+        return role.getName();
     }
 }
 
@@ -83,7 +224,7 @@ class User {
  */
 class Client extends User {
     public Client(String username, String password) {
-        super(username, password, "client"); // Calls parent constructor
+        super(username, password, UserRole.CLIENT); // Calls parent constructor
     }
 }
 
@@ -93,7 +234,69 @@ class Client extends User {
  */
 class Visitor extends User {
     public Visitor(String username, String password) {
-        super(username, password, "visitor"); // Calls parent constructor
+        super(username, password, UserRole.VISITOR); // Calls parent constructor
+    }
+}
+
+/**
+ * Salted password hashes (PBKDF2 with HMAC-SHA256), as saved by DurableUserDAO
+ * Encoded as "pbkdf2-sha256$iterations$salt$hash" with Base64 salt and hash, so the
+ * iteration count can be raised later without breaking saved users
+ */
+final class PasswordHash {
+    static final int DEFAULT_ITERATIONS = 100_000;
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private PasswordHash() {
+    }
+    
+    /**
+     * Hash a password with a new random salt
+     */
+    static String hash(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$"
+            + base64.encodeToString(derive(password, salt, iterations));
+    }
+    
+    /**
+     * Whether a password matches an encoded hash, compared in constant time
+     */
+    static boolean matches(String password, String encoded) {
+        String[] parts = parse(encoded);
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] expected = base64.decode(parts[3]);
+        return MessageDigest.isEqual(expected, derive(password, base64.decode(parts[2]), Integer.parseInt(parts[1])));
+    }
+    
+    /**
+     * Split an encoded hash into its four fields, or throw if it isn't one
+     */
+    static String[] parse(String encoded) {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX) || !parts[1].matches("[1-9][0-9]{0,8}")) {
+            throw new IllegalArgumentException("Not a password hash.");
+        }
+        Base64.getDecoder().decode(parts[2]); // Throws IllegalArgumentException if malformed
+        Base64.getDecoder().decode(parts[3]);
+        return parts;
+    }
+    
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available.", e); // Every Java runtime ships it
+        } finally {
+            spec.clearPassword();
+        }
     }
 }
 
@@ -110,7 +313,8 @@ class Task {
     private String taskTitle;            // Task title
     private String taskText;             // Task description
     private String assignedTo;           // Username of assigned user
-    private LocalDate completionDate;    // Sprint 5: Deadline for task
+    private int assigneeId;              // Symbol ID of assignedTo in the owning store's SymbolTable (NONE until indexed)
+    private int completionDay;           // Sprint 5: Deadline for task, as an epoch day (see DateCodec)
     private boolean isCompleted;         // Sprint 5: Completion status
     
     /**
@@ -122,7 +326,8 @@ class Task {
         this.taskTitle = taskTitle;
         this.taskText = taskText;
         this.assignedTo = assignedTo;
-        this.completionDate = completionDate;
+        this.assigneeId = SymbolTable.NONE;
+        this.completionDay = DateCodec.toDay(completionDate);
         this.isCompleted = false; // New tasks are incomplete by default
     }
     
@@ -143,8 +348,19 @@ class Task {
         return assignedTo;
     }
     
+    public int getAssigneeId() {
+        return assigneeId;
+    }
+    
     public LocalDate getCompletionDate() {
-        return completionDate;
+        return DateCodec.toDate(completionDay);
+    }
+    
+    /**
+     * Completion date as an epoch day - what sorting and date filters compare
+     */
+    public int getCompletionDay() {
+        return completionDay;
     }
     
     public boolean isCompleted() {
@@ -162,10 +378,22 @@ class Task {
     
     public void setAssignedTo(String assignedTo) {
         this.assignedTo = assignedTo;
+        this.assigneeId = SymbolTable.NONE; // Stale until the store interns it again
+    }
+    
+    /**
+     * Intern the assignee in the owning store's symbol table
+     * The task then shares the table's copy of the username
+     */
+    void internAssignee(SymbolTable symbols) {
+        assigneeId = symbols.intern(assignedTo);
+        if (assigneeId != SymbolTable.NONE) {
+            assignedTo = symbols.name(assigneeId);
+        }
     }
     
     public void setCompletionDate(LocalDate completionDate) {
-        this.completionDate = completionDate;
+        this.completionDay = DateCodec.toDay(completionDate);
     }
     
     /**
@@ -180,488 +408,7042 @@ class Task {
      * Includes Sprint 5 additions: completion date and status
      */
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         return "Task ID: " + taskId + "\n" +
-               "Title: " + taskTitle + "\n" +
-               "Description: " + taskText + "\n" +
-               "Assigned To: " + assignedTo + "\n" +
-               "Completion Date: " + completionDate.format(formatter) + "\n" +
+               "Title: " + getTaskTitle() + "\n" +
+               "Description: " + getTaskText() + "\n" +
+               "Assigned To: " + getAssignedTo() + "\n" +
+               "Completion Date: " + DateCodec.format(completionDay) + "\n" +
                "Status: " + (isCompleted ? "COMPLETED" : "INCOMPLETE");
     }
 }
 
-
-// DAO INTERFACES 
-
-/**
- * UserDAO Interface
- * Defines contract for user-related operations
- * Sprint 5: Methods now throw custom exceptions
- */
-interface UserDAO {
-    boolean registerUser(String username, String password, String userType) throws UserException;
-    User login(String username, String password) throws UserException;
-    boolean userExists(String username);
-    User[] getAllUsers();
-    int getUserCount();
-}
-
-/**
- * TaskDAO Interface
- * Defines contract for task-related CRUD operations
- * Sprint 5: Added completion date parameter and new methods for task completion
- */
-interface TaskDAO {
-    boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException;
-    Task[] getAllTasks();
-    Task getTaskById(int taskId) throws TaskException;
-    boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException;
-    boolean deleteTask(int taskId) throws TaskException;
-    Task[] searchTasks(String keyword);
-    Task[] getTasksByAssignee(String username);
-    Task[] getCompletedTasks(String username);      // Sprint 5: Get only completed tasks
-    Task[] getIncompleteTasks(String username);     // Sprint 5: Get only incomplete tasks
-    boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException; // Sprint 5
-    int getTaskCount();
-    Task[] getTasksSortedByDate(boolean ascending); // Sprint 5: Sort by completion date
-    void checkDuplicates();
-}
-
-// DAO IMPLEMENTATIONS 
-
 /**
- * UserDAOImpl - Implementation of UserDAO interface
- * Handles all user-related database operations using arrays
- * Sprint 5: Enhanced with exception handling
+ * DateCodec - dd-MM-yyyy dates as int epoch days (days since 1970-01-01)
+ * Hand-written parser and formatter: no DateTimeFormatter, no exceptions for bad
+ * input and no objects besides the formatted string itself
  */
-class UserDAOImpl implements UserDAO {
-    private User[] users;      // Array to store users
-    private int userCount;     // Current number of users
+final class DateCodec {
+    static final int INVALID = Integer.MIN_VALUE; // parse() result for text that isn't a valid date
+    static final int TEXT_LENGTH = 10;            // "dd-MM-yyyy"
+    
+    private static final int DAYS_0000_TO_1970 = 719_468; // Epoch day of 0000-03-01, the start of the 400-year cycle
+    private static final int DAYS_PER_CYCLE = 146_097;
+    
+    private DateCodec() {
+    }
     
     /**
-     * Constructor - initializes user storage
+     * Parse dd-MM-yyyy (exactly 10 characters, years 0001-9999)
+     * Returns the epoch day, or INVALID for a malformed or impossible date like 31-04-2026
      */
-    public UserDAOImpl(int maxSize) {
-        users = new User[maxSize];
-        userCount = 0;
+    static int parse(CharSequence text) {
+        if (text == null || text.length() != TEXT_LENGTH || text.charAt(2) != '-' || text.charAt(5) != '-') {
+            return INVALID;
+        }
+        int day = digits(text, 0, 2);
+        int month = digits(text, 3, 5);
+        int year = digits(text, 6, 10);
+        if (day < 1 || month < 1 || month > 12 || year < 1 || day > daysInMonth(year, month)) {
+            return INVALID; // Also catches a non-digit, digits() returns -1 for it
+        }
+        return toDay(year, month, day);
     }
     
     /**
-     * Register a new user
-     * Sprint 5: Throws UserException for validation errors
+     * Format an epoch day as dd-MM-yyyy
      */
-    public boolean registerUser(String username, String password, String userType) throws UserException {
-        // Check if array is full
-        if (userCount >= users.length) {
-            throw new UserException("User database is full.");
-        }
+    static String format(int epochDay) {
+        char[] text = new char[TEXT_LENGTH];
+        formatTo(epochDay, text, 0);
+        return new String(text);
+    }
+    
+    /**
+     * Write an epoch day as dd-MM-yyyy into text[offset, offset + 10), allocates nothing
+     */
+    static void formatTo(int epochDay, char[] text, int offset) {
+        // Civil-from-days over 400-year cycles that start on March 1st
+        int shifted = epochDay + DAYS_0000_TO_1970;
+        int cycle = Math.floorDiv(shifted, DAYS_PER_CYCLE);
+        int dayOfCycle = shifted - cycle * DAYS_PER_CYCLE;
+        int yearOfCycle = (dayOfCycle - dayOfCycle / 1460 + dayOfCycle / 36524 - dayOfCycle / 146096) / 365;
+        int dayOfYear = dayOfCycle - (365 * yearOfCycle + yearOfCycle / 4 - yearOfCycle / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfCycle + cycle * 400 + (month <= 2 ? 1 : 0);
         
-        // Validate username is not empty
-        if (username == null || username.trim().isEmpty()) {
-            throw new UserException("Username cannot be empty.");
+        putDigits(text, offset, day, 2);
+        text[offset + 2] = '-';
+        putDigits(text, offset + 3, month, 2);
+        text[offset + 5] = '-';
+        putDigits(text, offset + 6, year, 4);
+    }
+    
+    /**
+     * Epoch day of a valid calendar date
+     */
+    static int toDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year; // Years run March to February, so leap days come last
+        int cycle = Math.floorDiv(y, 400);
+        int yearOfCycle = y - cycle * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfCycle = yearOfCycle * 365 + yearOfCycle / 4 - yearOfCycle / 100 + dayOfYear;
+        return cycle * DAYS_PER_CYCLE + dayOfCycle - DAYS_0000_TO_1970;
+    }
+    
+    static int toDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+    
+    static LocalDate toDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+    
+    static int today() {
+        return toDay(LocalDate.now());
+    }
+    
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
         }
-        
-        // Validate password is not empty
-        if (password == null || password.trim().isEmpty()) {
-            throw new UserException("Password cannot be empty.");
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+    
+    /**
+     * Value of the decimal digits in text[from, to), or -1 if any of them isn't a digit
+     */
+    private static int digits(CharSequence text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
         }
-        
-        // Check for duplicate username
-        if (userExists(username)) {
-            throw new UserException("Username already exists.");
+        return value;
+    }
+    
+    private static void putDigits(char[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
         }
-        
-        // Create appropriate user type
-        User newUser;
-        if (userType.equalsIgnoreCase("client")) {
-            newUser = new Client(username, password);
-        } else if (userType.equalsIgnoreCase("visitor")) {
-            newUser = new Visitor(username, password);
+    }
+}
+
+/**
+ * Off-heap storage for task text
+ * Strings are stored UTF-8 encoded as [int byte length][bytes] in chunks carved out of
+ * 1 MB direct ByteBuffer slabs. Chunk sizes are powers of two from 16 bytes to 4 KB and
+ * each size class has its own slabs and free list, so a freed chunk is reused by the
+ * next string of the same class. Bigger strings get a direct buffer of their own,
+ * which is dropped when freed (the GC then returns that memory).
+ * Handles are (slab index << 32 | offset in slab).
+ * Allocation and freeing must be serialized by the caller, like TaskDAOImpl's writes.
+ */
+class OffHeapTextArena {
+    static final int SLAB_SIZE = 1 << 20;
+    static final int MIN_CHUNK = 16;
+    static final int MAX_CHUNK = 4096;
+    private static final int SIZE_CLASSES = 9;   // 16, 32, ..., 4096
+    private static final int LENGTH_PREFIX = 4;
+    
+    private final ArrayList<ByteBuffer> slabs = new ArrayList<>(); // null = freed big-string slab
+    private int[] chunkSizes = new int[16];     // Slab index -> chunk size (the buffer size for big strings)
+    private final long[][] freeChunks = new long[SIZE_CLASSES][]; // Per size class: stack of free handles
+    private final int[] freeCounts = new int[SIZE_CLASSES];
+    private final int[] carveSlab = new int[SIZE_CLASSES];        // Slab still being carved up, -1 = none
+    private final int[] carveOffset = new int[SIZE_CLASSES];
+    private int[] unusedSlabIndexes = new int[4];                 // Indexes of freed big-string slabs
+    private int unusedSlabCount;
+    
+    // Metrics
+    private long arenaBytes;     // Direct memory held by all slabs
+    private long carvedBytes;    // Bytes in chunks carved from the slabs so far, in use or free
+    private long allocatedBytes; // Bytes in chunks handed out (rounded up to the chunk size)
+    private long liveBytes;      // UTF-8 bytes of the strings currently stored
+    private int liveStrings;
+    
+    OffHeapTextArena() {
+        Arrays.fill(carveSlab, -1);
+        for (int c = 0; c < SIZE_CLASSES; c++) {
+            freeChunks[c] = new long[16];
+        }
+    }
+    
+    /**
+     * Store a string and return its handle
+     */
+    long allocate(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = LENGTH_PREFIX + bytes.length;
+        long handle;
+        int chunkSize;
+        if (needed > MAX_CHUNK) {
+            chunkSize = needed;
+            handle = (long) addSlab(ByteBuffer.allocateDirect(needed), needed) << 32;
+            carvedBytes += needed;
         } else {
-            throw new UserException("Invalid user type.");
+            int sizeClass = sizeClassOf(needed);
+            chunkSize = MIN_CHUNK << sizeClass;
+            handle = takeChunk(sizeClass, chunkSize);
         }
         
-        // Add user to array
-        users[userCount] = newUser;
-        userCount++;
-        return true;
+        ByteBuffer slab = slabs.get((int) (handle >>> 32));
+        int offset = (int) handle;
+        slab.putInt(offset, bytes.length);
+        slab.put(offset + LENGTH_PREFIX, bytes);
+        allocatedBytes += chunkSize;
+        liveBytes += bytes.length;
+        liveStrings++;
+        return handle;
     }
     
     /**
-     * Authenticate user login
-     * Sprint 5: Throws UserException for invalid credentials
+     * Decode the string behind a handle
      */
-    public User login(String username, String password) throws UserException {
-        // Validate inputs
-        if (username == null || username.trim().isEmpty()) {
-            throw new UserException("Username cannot be empty.");
-        }
-        if (password == null || password.trim().isEmpty()) {
-            throw new UserException("Password cannot be empty.");
+    String read(long handle) {
+        ByteBuffer slab = slabs.get((int) (handle >>> 32));
+        int offset = (int) handle;
+        int length = slab.getInt(offset);
+        if (length < 0 || offset + LENGTH_PREFIX + length > slab.capacity()) {
+            throw new IllegalStateException("Bad text arena handle " + handle + ".");
         }
-        
-        // Search for matching user
-        for (int i = 0; i < userCount; i++) {
-            if (users[i].getUsername().equals(username) && 
-                users[i].getPassword().equals(password)) {
-                return users[i]; // Login successful
+        byte[] bytes = new byte[length];
+        slab.get(offset + LENGTH_PREFIX, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Give a string's chunk back; the handle must not be used afterwards
+     */
+    void free(long handle) {
+        int slabIndex = (int) (handle >>> 32);
+        ByteBuffer slab = slabs.get(slabIndex);
+        int chunkSize = chunkSizes[slabIndex];
+        liveBytes -= slab.getInt((int) handle);
+        allocatedBytes -= chunkSize;
+        liveStrings--;
+        if (chunkSize > MAX_CHUNK) {
+            // Big string - drop its buffer and recycle the slab index
+            slabs.set(slabIndex, null);
+            arenaBytes -= slab.capacity();
+            carvedBytes -= chunkSize;
+            if (unusedSlabCount == unusedSlabIndexes.length) {
+                unusedSlabIndexes = Arrays.copyOf(unusedSlabIndexes, unusedSlabCount * 2);
             }
+            unusedSlabIndexes[unusedSlabCount++] = slabIndex;
+        } else {
+            int sizeClass = sizeClassOf(chunkSize);
+            if (freeCounts[sizeClass] == freeChunks[sizeClass].length) {
+                freeChunks[sizeClass] = Arrays.copyOf(freeChunks[sizeClass], freeCounts[sizeClass] * 2);
+            }
+            freeChunks[sizeClass][freeCounts[sizeClass]++] = handle;
         }
-        
-        // No match found
-        throw new UserException("Invalid username or password.");
     }
     
     /**
-     * Check if username already exists
-     * Used to prevent duplicate usernames
+     * Smallest size class whose chunks hold needed bytes
      */
-    public boolean userExists(String username) {
-        for (int i = 0; i < userCount; i++) {
-            if (users[i].getUsername().equals(username)) {
-                return true;
+    private static int sizeClassOf(int needed) {
+        int chunk = Math.max(MIN_CHUNK, Integer.highestOneBit(needed - 1) << 1);
+        return Integer.numberOfTrailingZeros(chunk) - Integer.numberOfTrailingZeros(MIN_CHUNK);
+    }
+    
+    /**
+     * Reuse a freed chunk, or carve a new one from the class's current slab
+     */
+    private long takeChunk(int sizeClass, int chunkSize) {
+        if (freeCounts[sizeClass] > 0) {
+            return freeChunks[sizeClass][--freeCounts[sizeClass]];
+        }
+        if (carveSlab[sizeClass] < 0 || carveOffset[sizeClass] + chunkSize > SLAB_SIZE) {
+            carveSlab[sizeClass] = addSlab(ByteBuffer.allocateDirect(SLAB_SIZE), chunkSize);
+            carveOffset[sizeClass] = 0;
+        }
+        long handle = (long) carveSlab[sizeClass] << 32 | carveOffset[sizeClass];
+        carveOffset[sizeClass] += chunkSize;
+        carvedBytes += chunkSize;
+        return handle;
+    }
+    
+    private int addSlab(ByteBuffer slab, int chunkSize) {
+        int slabIndex;
+        if (unusedSlabCount > 0) {
+            slabIndex = unusedSlabIndexes[--unusedSlabCount];
+            slabs.set(slabIndex, slab);
+        } else {
+            slabIndex = slabs.size();
+            slabs.add(slab);
+            if (slabIndex == chunkSizes.length) {
+                chunkSizes = Arrays.copyOf(chunkSizes, slabIndex * 2);
             }
         }
-        return false;
+        chunkSizes[slabIndex] = chunkSize;
+        arenaBytes += slab.capacity();
+        return slabIndex;
     }
     
     /**
-     * Get all registered users
-     * Returns a copy of the active users array
+     * Direct memory reserved by the arena
      */
-    public User[] getAllUsers() {
-        User[] activeUsers = new User[userCount];
-        for (int i = 0; i < userCount; i++) {
-            activeUsers[i] = users[i];
-        }
-        return activeUsers;
+    long getArenaBytes() {
+        return arenaBytes;
     }
     
     /**
-     * Get total number of registered users
+     * Bytes in chunks carved so far - handed out or waiting on a free list
      */
-    public int getUserCount() {
-        return userCount;
+    long getCarvedBytes() {
+        return carvedBytes;
+    }
+    
+    /**
+     * Bytes in chunks currently handed out
+     */
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    /**
+     * UTF-8 bytes of the strings currently stored
+     */
+    long getLiveBytes() {
+        return liveBytes;
+    }
+    
+    int getLiveStrings() {
+        return liveStrings;
+    }
+    
+    /**
+     * Share of the carved chunks not holding string bytes (free chunks, chunk rounding
+     * and length prefixes) - 0 is perfectly packed. Slab space not carved yet isn't
+     * counted, so a small store doesn't look fragmented
+     */
+    double getFragmentation() {
+        return carvedBytes == 0 ? 0 : 1.0 - (double) liveBytes / carvedBytes;
+    }
+    
+    public String toString() {
+        return String.format("arena=%d bytes, carved=%d bytes, allocated=%d bytes, live=%d bytes in %d strings, fragmentation=%.1f%%",
+                             arenaBytes, carvedBytes, allocatedBytes, liveBytes, liveStrings, getFragmentation() * 100);
     }
 }
 
 /**
- * TaskDAOImpl - Implementation of TaskDAO interface
- * Handles all task-related CRUD operations using arrays
- * Sprint 5: Enhanced with date validation and completion tracking
+ * Task whose title and description are stored in an OffHeapTextArena
+ * The getters decode the UTF-8 bytes on every call and the setters free the old text.
+ * A freed chunk can be reused by the next allocation, so these objects never leave
+ * TaskDAOImpl: callers get a toHeapTask() copy made while the store is locked.
  */
-class TaskDAOImpl implements TaskDAO {
-    private Task[] tasks;      // Array to store tasks
-    private int taskCount;     // Current number of tasks
-    private int nextId;        // Auto-incrementing ID for new tasks
+class OffHeapTask extends Task {
+    private final OffHeapTextArena arena;
+    private long titleHandle;
+    private long textHandle;
+    
+    OffHeapTask(OffHeapTextArena arena, int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) {
+        super(taskId, null, null, assignedTo, completionDate);
+        this.arena = arena;
+        this.titleHandle = arena.allocate(taskTitle);
+        this.textHandle = arena.allocate(taskText);
+    }
+    
+    public String getTaskTitle() {
+        return arena.read(titleHandle);
+    }
+    
+    public String getTaskText() {
+        return arena.read(textHandle);
+    }
+    
+    public void setTaskTitle(String taskTitle) {
+        long old = titleHandle;
+        titleHandle = arena.allocate(taskTitle);
+        arena.free(old);
+    }
+    
+    public void setTaskText(String taskText) {
+        long old = textHandle;
+        textHandle = arena.allocate(taskText);
+        arena.free(old);
+    }
     
     /**
-     * Constructor - initializes task storage
+     * Plain on-heap copy of this task
      */
-    public TaskDAOImpl(int maxSize) {
-        tasks = new Task[maxSize];
-        taskCount = 0;
-        nextId = 1; // Start IDs from 1
+    Task toHeapTask() {
+        Task copy = new Task(getTaskId(), getTaskTitle(), getTaskText(), getAssignedTo(), getCompletionDate());
+        copy.setCompleted(isCompleted());
+        return copy;
     }
     
     /**
-     * Add a new task (CREATE operation)
-     * Sprint 5: Includes completion date and validates it's not in the past
+     * Free the off-heap text; the task must not be read afterwards
      */
-    public boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
-        // Check if array is full
-        if (taskCount >= tasks.length) {
-            throw new TaskException("Task list is full.");
-        }
+    void release() {
+        arena.free(titleHandle);
+        arena.free(textHandle);
+    }
+}
+
+
+// QUERY RESULTS
+
+/**
+ * One group of tasks whose titles are equal ignoring case
+ */
+class DuplicateGroup {
+    private String title;     // Title of the first task in the group
+    private int[] taskIds;    // IDs of all tasks in the group, ascending
+    
+    public DuplicateGroup(String title, int[] taskIds) {
+        this.title = title;
+        this.taskIds = taskIds;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public int[] getTaskIds() {
+        return taskIds;
+    }
+}
+
+/**
+ * Result of TaskDAO.checkDuplicates()
+ * Lists every group of duplicate titles, ordered by the group's lowest task ID
+ */
+class DuplicateReport {
+    private DuplicateGroup[] groups;
+    
+    public DuplicateReport(DuplicateGroup[] groups) {
+        this.groups = groups;
+    }
+    
+    public DuplicateGroup[] getGroups() {
+        return groups;
+    }
+    
+    public boolean hasDuplicates() {
+        return groups.length > 0;
+    }
+    
+    /**
+     * Case-fold a title so that two titles fold to the same key exactly when
+     * equalsIgnoreCase() considers them equal (upper-case, then lower-case each code point)
+     */
+    static String foldCase(String title) {
+        StringBuilder folded = new StringBuilder(title.length());
+        for (int i = 0; i < title.length(); ) {
+            int codePoint = title.codePointAt(i);
+            folded.appendCodePoint(Character.toLowerCase(Character.toUpperCase(codePoint)));
+            i += Character.charCount(codePoint);
+        }
+        return folded.toString();
+    }
+}
+
+/**
+ * One page of a keyset-paginated query
+ * Pass getLastTaskId() as afterTaskId to fetch the next page
+ */
+class TaskPage {
+    private Task[] tasks;      // Tasks on this page, in ID order
+    private int lastTaskId;    // ID of the last task on this page (the cursor for the next page)
+    private boolean hasMore;   // True if there are tasks after this page
+    
+    public TaskPage(Task[] tasks, int afterTaskId, boolean hasMore) {
+        this.tasks = tasks;
+        this.lastTaskId = tasks.length > 0 ? tasks[tasks.length - 1].getTaskId() : afterTaskId;
+        this.hasMore = hasMore;
+    }
+    
+    public Task[] getTasks() {
+        return tasks;
+    }
+    
+    public int getLastTaskId() {
+        return lastTaskId;
+    }
+    
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
+
+/**
+ * A paged query - fetches the tasks after a task ID, at most pageSize of them
+ */
+interface TaskPageQuery {
+    TaskPage fetch(int afterTaskId, int pageSize);
+}
+
+/**
+ * TaskCursor - walks a paged query one page at a time
+ * Only the current page is held in memory, the next one is fetched when needed
+ */
+class TaskCursor implements Iterator<Task> {
+    private TaskPageQuery query;
+    private int pageSize;
+    private Task[] page;       // Current page
+    private int position;      // Next task to return from the current page
+    private int afterTaskId;   // Keyset cursor - last task ID fetched so far
+    private boolean morePages; // False once the query reported its last page
+    
+    public TaskCursor(TaskPageQuery query, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        this.query = query;
+        this.pageSize = pageSize;
+        this.page = new Task[0];
+        this.position = 0;
+        this.afterTaskId = 0; // Task IDs start at 1
+        this.morePages = true;
+    }
+    
+    /**
+     * True if there may be more tasks, without fetching anything
+     */
+    public boolean hasMore() {
+        return position < page.length || morePages;
+    }
+    
+    public boolean hasNext() {
+        while (position == page.length && morePages) {
+            fetchPage();
+        }
+        return position < page.length;
+    }
+    
+    public Task next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page[position++];
+    }
+    
+    /**
+     * Return the rest of the current page, fetching the next page if it is used up
+     */
+    public Task[] nextPage() {
+        if (!hasNext()) {
+            return new Task[0];
+        }
+        Task[] rest = Arrays.copyOfRange(page, position, page.length);
+        position = page.length;
+        return rest;
+    }
+    
+    /**
+     * Lazy stream over the remaining tasks - pages are fetched as the stream is consumed
+     */
+    public Stream<Task> stream() {
+        Spliterator<Task> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+        return StreamSupport.stream(spliterator, false);
+    }
+    
+    private void fetchPage() {
+        TaskPage next = query.fetch(afterTaskId, pageSize);
+        page = next.getTasks();
+        position = 0;
+        afterTaskId = next.getLastTaskId();
+        morePages = next.hasMore();
+    }
+}
+
+// DAO INTERFACES 
+
+/**
+ * Completion status filter for the date-range queries
+ */
+enum TaskStatus {
+    ALL, COMPLETED, INCOMPLETE;
+    
+    boolean matches(Task task) {
+        return this == ALL || (this == COMPLETED) == task.isCompleted();
+    }
+}
+
+/**
+ * UserDAO Interface
+ * Defines contract for user-related operations
+ * Sprint 5: Methods now throw custom exceptions
+ */
+interface UserDAO {
+    boolean registerUser(String username, String password, String userType) throws UserException;
+    User login(String username, String password) throws UserException;
+    boolean userExists(String username);
+    User findUser(String username); // Registered user with that name (any case), or null
+    User[] getAllUsers();
+    int getUserCount();
+}
+
+/**
+ * TaskDAO Interface
+ * Defines contract for task-related CRUD operations
+ * Sprint 5: Added completion date parameter and new methods for task completion
+ */
+interface TaskDAO {
+    boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException;
+    Task[] getAllTasks();
+    Task getTaskById(int taskId) throws TaskException;
+    boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException;
+    boolean deleteTask(int taskId) throws TaskException;
+    Task[] searchTasks(String keyword);
+    Task[] getTasksByAssignee(String username);
+    Task[] getCompletedTasks(String username);      // Sprint 5: Get only completed tasks
+    Task[] getIncompleteTasks(String username);     // Sprint 5: Get only incomplete tasks
+    boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException; // Sprint 5
+    int getTaskCount();
+    Task[] getTasksSortedByDate(boolean ascending); // Sprint 5: Sort by completion date
+    DuplicateReport checkDuplicates();
+    
+    // Date-range queries - assignee null means any user, results are ordered by (date, task ID)
+    Task[] getTasksDueBetween(LocalDate from, LocalDate to, String assignee, TaskStatus status) throws TaskException;
+    Task[] getTasksDueWithinDays(int days, String assignee, TaskStatus status) throws TaskException;
+    Task[] getOverdueTasks(String assignee); // Incomplete tasks whose date is before today
+    
+    // Keyset-paginated variants - return up to pageSize tasks with an ID greater than afterTaskId
+    TaskPage getAllTasksPage(int afterTaskId, int pageSize);
+    TaskPage searchTasksPage(String keyword, int afterTaskId, int pageSize);
+    TaskPage getTasksByAssigneePage(String username, int afterTaskId, int pageSize);
+    TaskPage getCompletedTasksPage(String username, int afterTaskId, int pageSize);
+    TaskPage getIncompleteTasksPage(String username, int afterTaskId, int pageSize);
+}
+
+/**
+ * Implemented by task stores whose writes can become durable after the write call returns
+ * A caller that serializes writes with a lock turns deferral on, then calls awaitDurable()
+ * once it has unlocked, so one group-commit fsync can cover writes from many threads
+ */
+interface DeferredDurability {
+    void deferDurability();                 // From now on writes return before they are on disk
+    void awaitDurable() throws TaskException; // Wait until this thread's last write is on disk
+}
+
+/**
+ * Implemented by task stores whose getTaskById and getTaskCount may run while a write
+ * is in progress (ConcurrentTaskDAO's optimistic reads). Such a lookup must always
+ * return or throw, never hang, and never return an object a later write changes
+ */
+interface OptimisticLookups {
+    boolean allowsOptimisticLookups(); // False if a lookup reads memory a write may free
+}
+
+// INDEX STRUCTURES
+
+/**
+ * SymbolTable - maps strings to small int IDs and back
+ * IDs are handed out in first-seen order and never reused, so two IDs are equal
+ * exactly when their strings are equal. Lookups don't lock, adding a new string does.
+ * Each store owns its table, so its IDs go away with the store
+ */
+class SymbolTable {
+    static final int NONE = -1; // ID of null
+    
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int count; // Guarded by this
+    
+    /**
+     * ID of a string, adding it the first time it is seen
+     */
+    int intern(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+    
+    /**
+     * ID of a string, or NONE if it was never interned
+     */
+    int lookup(String name) {
+        Integer id = name == null ? null : ids.get(name);
+        return id != null ? id : NONE;
+    }
+    
+    /**
+     * String behind an ID
+     */
+    String name(int id) {
+        if (id == NONE) {
+            return null;
+        }
+        String[] current = names;
+        String name = id < current.length ? current[id] : null;
+        return name != null ? name : nameLocked(id); // Only null if we raced with add()
+    }
+    
+    synchronized int size() {
+        return count;
+    }
+    
+    private synchronized int add(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id; // Another thread added it first
+        }
+        String[] current = names;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+        }
+        current[count] = name;
+        names = current; // Publish the name before the ID can be looked up
+        ids.put(name, count);
+        return count++;
+    }
+    
+    private synchronized String nameLocked(int id) {
+        return names[id];
+    }
+}
+
+/**
+ * IntIndexMap - open-addressing hash map from int keys to int values
+ * Used to find a task's array slot by ID without boxing Integer keys
+ * Linear probing with backward-shift deletion, so no tombstones are left behind
+ */
+class IntIndexMap {
+    static final int NOT_FOUND = -1;
+    private static final int EMPTY = Integer.MIN_VALUE; // Marks a free bucket (cannot be used as a key)
+    
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    
+    public IntIndexMap() {
+        this(16);
+    }
+    
+    public IntIndexMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * 3 < expectedSize * 4) { // Keep load factor at or below 0.75
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+    
+    /**
+     * Get the value stored for a key, or NOT_FOUND
+     * Reads the arrays once and probes at most one full table, so a lookup always ends
+     */
+    public int get(int key) {
+        int[] k = keys;
+        int[] v = values;
+        int m = k.length - 1;
+        int i = bucket(key) & m;
+        for (int probes = 0; probes <= m && k[i] != EMPTY; probes++) {
+            if (k[i] == key) {
+                return v[i];
+            }
+            i = (i + 1) & m;
+        }
+        return NOT_FOUND;
+    }
+    
+    public boolean containsKey(int key) {
+        return get(key) != NOT_FOUND;
+    }
+    
+    /**
+     * Insert or replace the value for a key
+     */
+    public void put(int key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key " + key + " is reserved.");
+        }
+        int i = bucket(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length << 1);
+        }
+    }
+    
+    /**
+     * Remove a key and return its old value, or NOT_FOUND
+     */
+    public int remove(int key) {
+        int i = bucket(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                int old = values[i];
+                shiftBack(i);
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Close the gap at a freed bucket by pulling later entries of the probe chain back
+     */
+    private void shiftBack(int gap) {
+        int i = (gap + 1) & mask;
+        while (keys[i] != EMPTY) {
+            int home = bucket(keys[i]);
+            // Move the entry only if its home bucket is not between the gap and its position
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+    }
+    
+    private int bucket(int key) {
+        int h = key * 0x9E3779B9; // Fibonacci hashing spreads sequential IDs
+        return (h ^ (h >>> 16)) & mask;
+    }
+    
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+}
+
+/**
+ * SortedIdList - growable list of task IDs kept in ascending order
+ * New tasks always get the highest ID, so adding one is usually a plain append
+ */
+class SortedIdList {
+    private int[] ids;
+    private int size;
+    
+    public SortedIdList() {
+        ids = new int[4];
+        size = 0;
+    }
+    
+    /**
+     * Insert an ID at its sorted position (ignored if already present)
+     */
+    public void add(int id) {
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity(size + 1);
+            ids[size] = id; // Fast path - append
+            size++;
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -(pos + 1);
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = id;
+        size++;
+    }
+    
+    /**
+     * Remove an ID, returns false if it wasn't in the list
+     */
+    public boolean remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+    
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+    
+    /**
+     * Position of the first ID greater than afterId (size if there is none)
+     */
+    public int indexAfter(int afterId) {
+        int pos = Arrays.binarySearch(ids, 0, size, afterId);
+        return pos >= 0 ? pos + 1 : -(pos + 1);
+    }
+    
+    public int get(int index) {
+        return ids[index];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(required, ids.length * 2));
+        }
+    }
+}
+
+/**
+ * AssigneeTasks - the task IDs of one user, split by completion state
+ * and ordered by completion date (the user's own date indexes)
+ * Entry of the assignee index in TaskDAOImpl
+ */
+class AssigneeTasks {
+    final SortedIdList incomplete = new SortedIdList();
+    final SortedIdList completed = new SortedIdList();
+    final DateIndex dates = new DateIndex();     // All of the user's tasks by completion date
+    final DateIndex openDates = new DateIndex(); // Only the incomplete ones
+    
+    SortedIdList byState(boolean isCompleted) {
+        return isCompleted ? completed : incomplete;
+    }
+    
+    boolean isEmpty() {
+        return incomplete.isEmpty() && completed.isEmpty();
+    }
+}
+
+/**
+ * SearchText - the normalized form searches compare against
+ * Text is NFC-normalized, case-folded and UTF-8 encoded once when a task is
+ * written, so a search folds only its keyword and then compares raw bytes.
+ * UTF-8 never starts a character inside another one, so a byte match is always
+ * a match of whole characters
+ */
+final class SearchText {
+    /**
+     * Between the fields of a shadow - 0xFF never occurs in UTF-8, so no keyword can match across fields
+     */
+    static final byte FIELD_SEPARATOR = (byte) 0xFF;
+    
+    // Word-at-a-time scan: 8 shadow bytes read as one little-endian long
+    private static final VarHandle WORDS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    
+    private SearchText() {
+    }
+    
+    /**
+     * Normalized form of a keyword or field
+     * Composed and decomposed accents compare equal, and so do the cases of a letter
+     */
+    static String fold(String text) {
+        return DuplicateReport.foldCase(Normalizer.normalize(text, Normalizer.Form.NFC));
+    }
+    
+    /**
+     * Encode a keyword for contains() - done once per search
+     */
+    static byte[] keyword(String keyword) {
+        return fold(keyword).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Whether one field contains a keyword from keyword(), for stores that keep no shadow
+     * Folds the field on every call; a null field (no assignee) contains nothing
+     */
+    static boolean fieldContains(String field, byte[] keyword) {
+        return field != null && contains(keyword(field), keyword);
+    }
+    
+    /**
+     * Title, description and assignee of a task, normalized and joined by FIELD_SEPARATOR
+     */
+    static byte[] shadow(Task task) {
+        byte[] title = keyword(task.getTaskTitle());
+        byte[] text = keyword(task.getTaskText());
+        byte[] assignee = task.getAssignedTo() != null ? keyword(task.getAssignedTo()) : new byte[0]; // Unassigned: empty field
+        byte[] shadow = new byte[title.length + text.length + assignee.length + 2];
+        System.arraycopy(title, 0, shadow, 0, title.length);
+        shadow[title.length] = FIELD_SEPARATOR;
+        System.arraycopy(text, 0, shadow, title.length + 1, text.length);
+        shadow[title.length + 1 + text.length] = FIELD_SEPARATOR;
+        System.arraycopy(assignee, 0, shadow, shadow.length - assignee.length, assignee.length);
+        return shadow;
+    }
+    
+    /**
+     * Whether the shadow contains the keyword, allocates nothing
+     * Tests 8 start positions per step: a position is only compared in full if both
+     * the keyword's first and last byte line up there. Keywords under 2 bytes and
+     * shadows shorter than one word use the plain scan
+     */
+    static boolean contains(byte[] shadow, byte[] keyword) {
+        int length = keyword.length;
+        if (length < 2 || shadow.length < length + Long.BYTES - 1) {
+            return containsScalar(shadow, keyword, 0);
+        }
+        long first = ONES * (keyword[0] & 0xFF);
+        long last = ONES * (keyword[length - 1] & 0xFF);
+        int limit = shadow.length - length - Long.BYTES + 1; // Last start whose last-byte word still fits
+        int i = 0;
+        for (; i <= limit; i += Long.BYTES) {
+            long hits = zeroBytes((long) WORDS.get(shadow, i) ^ first)
+                      & zeroBytes((long) WORDS.get(shadow, i + length - 1) ^ last);
+            while (hits != 0) {
+                int start = i + (Long.numberOfTrailingZeros(hits) >>> 3);
+                if (Arrays.equals(shadow, start + 1, start + length - 1, keyword, 1, length - 1)) {
+                    return true;
+                }
+                hits &= hits - 1;
+            }
+        }
+        return containsScalar(shadow, keyword, i);
+    }
+    
+    /**
+     * High bit set in every byte of the word that is zero, exact (no false positives)
+     */
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+    
+    /**
+     * Byte-by-byte scan of the start positions from `from` on
+     */
+    static boolean containsScalar(byte[] shadow, byte[] keyword, int from) {
+        if (keyword.length == 0) {
+            return true;
+        }
+        byte first = keyword[0];
+        int last = shadow.length - keyword.length;
+        for (int i = from; i <= last; i++) {
+            if (shadow[i] != first) {
+                continue;
+            }
+            int k = 1;
+            while (k < keyword.length && shadow[i + k] == keyword[k]) {
+                k++;
+            }
+            if (k == keyword.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
+
+/**
+ * Benchmark: search scans without an index
+ * Usage: java SearchScanBenchmark [task counts...]   (default 10000 100000 1000000)
+ * Compares the old per-task toLowerCase().contains with the byte-by-byte and the
+ * word-at-a-time scan of SearchText over the same seeded corpus; prints the time of
+ * one full scan and the scan speed over the shadow bytes for each keyword.
+ */
+class SearchScanBenchmark {
+    private static final String[] WORDS = {"report", "meeting", "budget", "review", "caf\u00e9", "Stra\u00dfe",
+        "deploy", "invoice", "draft", "\u0130stanbul", "plan", "update", "client", "backup", "schedule"};
+    private static final String[] KEYWORDS = {"zzq", "budget review", "\u00c9T\u00c9", "plan"};
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+    
+    /**
+     * One way of deciding whether task number i matches
+     */
+    private interface Matcher {
+        boolean matches(int i);
+    }
+    
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                                      : new int[] {10_000, 100_000, 1_000_000};
+        System.out.printf("%10s %-15s %-20s %9s %10s %8s%n", "tasks", "keyword", "scan", "ms/scan", "MB/s", "matches");
+        for (int size : sizes) {
+            run(size);
+        }
+    }
+    
+    private static void run(int size) {
+        Random random = new Random(42);
+        Task[] tasks = new Task[size];
+        byte[][] shadows = new byte[size][];
+        long shadowBytes = 0;
+        LocalDate due = LocalDate.now().plusDays(1);
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i + 1, sentence(random, 3), sentence(random, 12), "user" + random.nextInt(100), due);
+            shadows[i] = SearchText.shadow(tasks[i]);
+            shadowBytes += shadows[i].length;
+        }
+        for (String keyword : KEYWORDS) {
+            String lowerKeyword = keyword.toLowerCase();
+            byte[] folded = SearchText.keyword(keyword);
+            measure(size, keyword, "toLowerCase", shadowBytes, i ->
+                tasks[i].getTaskTitle().toLowerCase().contains(lowerKeyword) ||
+                tasks[i].getTaskText().toLowerCase().contains(lowerKeyword) ||
+                tasks[i].getAssignedTo().toLowerCase().contains(lowerKeyword));
+            measure(size, keyword, "shadow, byte scan", shadowBytes, i -> SearchText.containsScalar(shadows[i], folded, 0));
+            measure(size, keyword, "shadow, word scan", shadowBytes, i -> SearchText.contains(shadows[i], folded));
+        }
+    }
+    
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            text.append(random.nextBoolean() ? word : word.toUpperCase());
+        }
+        return text.toString();
+    }
+    
+    private static void measure(int size, String keyword, String scan, long shadowBytes, Matcher matcher) {
+        int matches = 0;
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            matches = scan(size, matcher);
+        }
+        long begin = System.nanoTime();
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            matches = scan(size, matcher);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9 / MEASURED_RUNS;
+        System.out.printf("%10d %-15s %-20s %9.2f %10.0f %8d%n", size, keyword, scan,
+            seconds * 1e3, shadowBytes / seconds / 1e6, matches);
+    }
+    
+    private static int scan(int size, Matcher matcher) {
+        int matches = 0;
+        for (int i = 0; i < size; i++) {
+            if (matcher.matches(i)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
+
+/**
+ * TrigramIndex - inverted index from 3-byte substrings to task IDs
+ * A task's search shadow (see SearchText) is broken into trigrams; a keyword can
+ * only be contained in it if all of its trigrams are, so intersecting the
+ * posting lists gives a small candidate set that is then confirmed exactly
+ */
+class TrigramIndex {
+    static final int GRAM_LENGTH = 3;
+    
+    private IntIndexMap gramSlots;      // Trigram key -> position in postings array
+    private SortedIdList[] postings;    // Task IDs per trigram
+    private int gramCount;
+    
+    public TrigramIndex() {
+        gramSlots = new IntIndexMap();
+        postings = new SortedIdList[64];
+        gramCount = 0;
+    }
+    
+    /**
+     * Index all trigrams of a task's search shadow
+     */
+    public void add(int taskId, byte[] shadow) {
+        for (int i = 0; i + GRAM_LENGTH <= shadow.length; i++) {
+            postingsFor(gramKey(shadow, i), true).add(taskId);
+        }
+    }
+    
+    /**
+     * Remove a task from the posting lists of its search shadow
+     * The shadow must be the one the task was indexed with
+     */
+    public void remove(int taskId, byte[] shadow) {
+        for (int i = 0; i + GRAM_LENGTH <= shadow.length; i++) {
+            SortedIdList list = postingsFor(gramKey(shadow, i), false);
+            if (list != null) {
+                list.remove(taskId);
+            }
+        }
+    }
+    
+    /**
+     * Get the IDs of tasks whose shadow contains every trigram of the keyword, in ID order
+     * The keyword comes from SearchText.keyword; returns null if it is too short to use the index
+     */
+    public SortedIdList candidates(byte[] keyword) {
+        SortedIdList[] lists = postingLists(keyword);
+        if (lists == null) {
+            return null;
+        }
+        if (lists.length == 0) {
+            return new SortedIdList();
+        }
+        int gramTotal = lists.length;
+        
+        // Walk the shortest list and keep IDs that appear in all the others
+        int shortest = 0;
+        for (int i = 1; i < gramTotal; i++) {
+            if (lists[i].size() < lists[shortest].size()) {
+                shortest = i;
+            }
+        }
+        SortedIdList result = new SortedIdList();
+        for (int k = 0; k < lists[shortest].size(); k++) {
+            int id = lists[shortest].get(k);
+            boolean inAll = true;
+            for (int i = 0; i < gramTotal && inAll; i++) {
+                if (i != shortest && lists[i] != lists[shortest]) {
+                    inAll = lists[i].contains(id);
+                }
+            }
+            if (inAll) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Get the posting list of every trigram of the keyword, for nextCandidate
+     * Returns null if the keyword is too short to use the index, and an empty
+     * array if some trigram has no tasks (so nothing can match)
+     */
+    public SortedIdList[] postingLists(byte[] keyword) {
+        int gramTotal = keyword.length - GRAM_LENGTH + 1;
+        if (gramTotal < 1) {
+            return null;
+        }
+        SortedIdList[] lists = new SortedIdList[gramTotal];
+        for (int i = 0; i < gramTotal; i++) {
+            lists[i] = postingsFor(gramKey(keyword, i), false);
+            if (lists[i] == null || lists[i].isEmpty()) {
+                return new SortedIdList[0];
+            }
+        }
+        return lists;
+    }
+    
+    /**
+     * Get the smallest ID greater than afterId that is in all the lists, or -1 if there is none
+     * Lazy intersection for paging - each list jumps to the current best guess with a
+     * binary search (leapfrog), so a page costs the same however far into the results it is
+     */
+    public static int nextCandidate(SortedIdList[] lists, int afterId) {
+        if (lists.length == 0) {
+            return -1;
+        }
+        int candidate = afterId + 1;
+        int agreeing = 0; // Lists in a row that contain the candidate
+        for (int i = 0; agreeing < lists.length; i = (i + 1) % lists.length) {
+            int pos = lists[i].indexAfter(candidate - 1);
+            if (pos == lists[i].size()) {
+                return -1;
+            }
+            int id = lists[i].get(pos);
+            if (id == candidate) {
+                agreeing++;
+            } else {
+                candidate = id;
+                agreeing = 1;
+            }
+        }
+        return candidate;
+    }
+    
+    /**
+     * Pack three bytes into a key (exact, 24 bits)
+     */
+    private static int gramKey(byte[] text, int start) {
+        return (text[start] & 0xFF) << 16 | (text[start + 1] & 0xFF) << 8 | (text[start + 2] & 0xFF);
+    }
+    
+    private SortedIdList postingsFor(int key, boolean create) {
+        int slot = gramSlots.get(key);
+        if (slot != IntIndexMap.NOT_FOUND) {
+            return postings[slot];
+        }
+        if (!create) {
+            return null;
+        }
+        if (gramCount == postings.length) {
+            postings = Arrays.copyOf(postings, gramCount * 2);
+        }
+        postings[gramCount] = new SortedIdList();
+        gramSlots.put(key, gramCount);
+        gramCount++;
+        return postings[gramCount - 1];
+    }
+}
+
+/**
+ * DateIndex - task IDs ordered by (completion date, task ID)
+ * One bucket per distinct date, each bucket holds its task IDs in ascending order
+ */
+class DateIndex {
+    private TreeMap<Integer, SortedIdList> buckets; // Epoch day -> task IDs due that day
+    
+    public DateIndex() {
+        buckets = new TreeMap<>();
+    }
+    
+    public void add(int day, int taskId) {
+        SortedIdList ids = buckets.get(day);
+        if (ids == null) {
+            ids = new SortedIdList();
+            buckets.put(day, ids);
+        }
+        ids.add(taskId);
+    }
+    
+    public void remove(int day, int taskId) {
+        SortedIdList ids = buckets.get(day);
+        if (ids != null) {
+            ids.remove(taskId);
+            if (ids.isEmpty()) {
+                buckets.remove(day);
+            }
+        }
+    }
+    
+    /**
+     * Date buckets between two epoch days (both inclusive), earliest first
+     * O(log n) to find the first bucket, then one step per bucket
+     */
+    public Iterable<SortedIdList> range(int fromDay, int toDay) {
+        return buckets.subMap(fromDay, true, toDay, true).values();
+    }
+    
+    /**
+     * Date buckets strictly before an epoch day, earliest first
+     */
+    public Iterable<SortedIdList> before(int day) {
+        return buckets.headMap(day, false).values();
+    }
+    
+    /**
+     * Date buckets from earliest to latest, or latest to earliest
+     * Tasks sharing a date always stay in ID order, whichever direction is used
+     */
+    public Iterable<SortedIdList> buckets(boolean ascending) {
+        return ascending ? buckets.values() : buckets.descendingMap().values();
+    }
+}
+
+// DAO IMPLEMENTATIONS 
+
+/**
+ * UserDAOImpl - Implementation of UserDAO interface
+ * Handles all user-related database operations using arrays
+ * Sprint 5: Enhanced with exception handling
+ */
+class UserDAOImpl implements UserDAO {
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    private User[] users;      // Array to store users in registration order (grows when full)
+    private int userCount;     // Current number of users
+    private HashMap<String, User> usersByName; // Normalized username -> user
+    
+    /**
+     * Constructor - initializes user storage with the default capacity
+     */
+    public UserDAOImpl() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructor - initializes user storage
+     * initialCapacity is only a sizing hint, the store grows past it
+     */
+    public UserDAOImpl(int initialCapacity) {
+        users = new User[Math.max(initialCapacity, 1)];
+        userCount = 0;
+        usersByName = new HashMap<>();
+    }
+    
+    /**
+     * Normalization rule for usernames: surrounding spaces are ignored and
+     * names are case-insensitive, so "Bob" and " bob" are the same user
+     */
+    static String normalizeUsername(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Register a new user
+     * Sprint 5: Throws UserException for validation errors
+     */
+    public boolean registerUser(String username, String password, String userType) throws UserException {
+        checkNewUser(username, password, userType);
+        addUser(username.trim(), password, UserRole.fromName(userType));
+        return true;
+    }
+    
+    /**
+     * Throw if registerUser would reject these details
+     */
+    void checkNewUser(String username, String password, String userType) throws UserException {
+        // Validate username is not empty
+        if (username == null || username.trim().isEmpty()) {
+            throw new UserException("Username cannot be empty.");
+        }
+        
+        // Validate password is not empty
+        if (password == null || password.trim().isEmpty()) {
+            throw new UserException("Password cannot be empty.");
+        }
+        
+        // Check for duplicate username (normalized once here, then a hash lookup)
+        if (usersByName.containsKey(normalizeUsername(username))) {
+            throw new UserException("Username already exists.");
+        }
+        
+        // Check the user type
+        if (UserRole.fromName(userType) == null) {
+            throw new UserException("Invalid user type.");
+        }
+    }
+    
+    /**
+     * Add a user that passed checkNewUser (username already trimmed) and return it
+     */
+    User addUser(String username, String password, UserRole role) {
+        // Create appropriate user type
+        User newUser = role == UserRole.CLIENT ? new Client(username, password) : new Visitor(username, password);
+        
+        // Add user to array and index
+        if (userCount == users.length) {
+            users = Arrays.copyOf(users, users.length * 2);
+        }
+        users[userCount] = newUser;
+        userCount++;
+        usersByName.put(normalizeUsername(username), newUser);
+        return newUser;
+    }
+    
+    /**
+     * Authenticate user login
+     * Sprint 5: Throws UserException for invalid credentials
+     */
+    public User login(String username, String password) throws UserException {
+        // Validate inputs
+        if (username == null || username.trim().isEmpty()) {
+            throw new UserException("Username cannot be empty.");
+        }
+        if (password == null || password.trim().isEmpty()) {
+            throw new UserException("Password cannot be empty.");
+        }
+        
+        // Look up the user by normalized name
+        User user = usersByName.get(normalizeUsername(username));
+        if (user != null && user.checkPassword(password)) {
+            return user; // Login successful
+        }
+        
+        // No match found
+        throw new UserException("Invalid username or password.");
+    }
+    
+    /**
+     * Check if username already exists
+     * Used to prevent duplicate usernames
+     */
+    public boolean userExists(String username) {
+        return findUser(username) != null;
+    }
+    
+    /**
+     * Find a registered user by name, ignoring case and surrounding spaces
+     */
+    public User findUser(String username) {
+        if (username == null) {
+            return null;
+        }
+        return usersByName.get(normalizeUsername(username));
+    }
+    
+    /**
+     * Get all registered users
+     * Returns a copy of the active users array
+     */
+    public User[] getAllUsers() {
+        User[] activeUsers = new User[userCount];
+        for (int i = 0; i < userCount; i++) {
+            activeUsers[i] = users[i];
+        }
+        return activeUsers;
+    }
+    
+    /**
+     * Get total number of registered users
+     */
+    public int getUserCount() {
+        return userCount;
+    }
+}
+
+/**
+ * ConcurrentUserDAO - thread-safe wrapper around another UserDAO
+ * Registrations take a StampedLock write lock; lookups and logins share the read
+ * lock. Reads aren't optimistic because the delegate's HashMap may be mid-resize
+ * while a registration runs.
+ */
+class ConcurrentUserDAO implements UserDAO {
+    private final UserDAO delegate;
+    private final StampedLock lock = new StampedLock();
+    
+    public ConcurrentUserDAO(UserDAO delegate) {
+        this.delegate = delegate;
+    }
+    
+    public boolean registerUser(String username, String password, String userType) throws UserException {
+        long stamp = lock.writeLock();
+        try {
+            return delegate.registerUser(username, password, userType);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public User login(String username, String password) throws UserException {
+        long stamp = lock.readLock();
+        try {
+            return delegate.login(username, password);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    public boolean userExists(String username) {
+        return findUser(username) != null;
+    }
+    
+    public User findUser(String username) {
+        long stamp = lock.readLock();
+        try {
+            return delegate.findUser(username);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    public User[] getAllUsers() {
+        long stamp = lock.readLock();
+        try {
+            return delegate.getAllUsers();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    public int getUserCount() {
+        long stamp = lock.readLock();
+        try {
+            return delegate.getUserCount();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
+
+/**
+ * TaskDAOImpl - Implementation of TaskDAO interface
+ * Handles all task-related CRUD operations using arrays
+ * Sprint 5: Enhanced with date validation and completion tracking
+ * The task array grows on demand and an IntIndexMap finds tasks by ID in O(1)
+ * Deletes leave a null tombstone in O(1); a background compactor closes the gaps a few slots at a time
+ */
+class TaskDAOImpl implements TaskDAO, OptimisticLookups {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double COMPACTION_THRESHOLD = 0.25; // Start compacting when 25% of slots are tombstones
+    private static final int COMPACTION_MIN_SLOTS = 64;      // Don't bother compacting tiny arrays
+    private static final int COMPACTION_STEP = 256;          // Max slots visited by the compactor per write
+    static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;    // Scans over fewer items stay on the calling thread
+    private static final int PARALLEL_MIN_CHUNK = 2_048;     // Smallest range a parallel scan is split into
+    
+    /**
+     * Scan of the item range [from, to), returning its partial result in item order
+     */
+    private interface RangeScan<R> {
+        R scan(int from, int to);
+    }
+    
+    /**
+     * Fork/join task that halves its range until it is small enough to scan
+     * Partial results are merged left to right, so the order of the items is kept
+     */
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final RangeScan<R> scan;
+        private final BinaryOperator<R> merge;
+        
+        RangeTask(int from, int to, int chunk, RangeScan<R> scan, BinaryOperator<R> merge) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.scan = scan;
+            this.merge = merge;
+        }
+        
+        @Override
+        protected R compute() {
+            if (to - from <= chunk) {
+                return scan.scan(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask<R> left = new RangeTask<>(from, mid, chunk, scan, merge);
+            left.fork();
+            R right = new RangeTask<>(mid, to, chunk, scan, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+    
+    private Task[] tasks;          // Array to store tasks (grows when full, null = deleted)
+    private int[] slotIds;         // Task ID last stored in each slot, kept for tombstones too (for paging)
+    private byte[][] shadows;      // Search shadow of the task in each slot (see SearchText)
+    private int slotCount;         // Used slots in tasks array, including tombstones
+    private int taskCount;         // Current number of tasks
+    private int nextId;            // Auto-incrementing ID for new tasks
+    private IntIndexMap idIndex;   // Task ID -> position in tasks array
+    private final SymbolTable symbols = new SymbolTable(); // Assignee usernames -> symbol IDs
+    private AssigneeTasks[] assigneeIndex;                // Assignee symbol ID + 1 -> that user's task IDs (slot 0 = unassigned, null = none)
+    private TrigramIndex searchIndex;                     // Trigrams of title/description/assignee -> task IDs
+    private DateIndex dateIndex;                          // Task IDs ordered by completion date
+    private DateIndex openDateIndex;                      // Same, but only incomplete tasks (for overdue queries)
+    private final OffHeapTextArena textArena;             // Off-heap title/description storage, null = on heap
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    
+    // Incremental compaction state: slots [0, compactWrite) are packed,
+    // [compactWrite, compactRead) are empty and [compactRead, slotCount) are not visited yet
+    private boolean compacting;
+    private int compactRead;
+    private int compactWrite;
+    
+    /**
+     * Constructor - initializes task storage with the default capacity
+     */
+    public TaskDAOImpl() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructor - initializes task storage
+     * initialCapacity is only a sizing hint, the store grows past it
+     */
+    public TaskDAOImpl(int initialCapacity) {
+        this(initialCapacity, null);
+    }
+    
+    /**
+     * Constructor - initializes task storage
+     * With a textArena, titles and descriptions are kept off-heap (see OffHeapTask)
+     */
+    public TaskDAOImpl(int initialCapacity, OffHeapTextArena textArena) {
+        this.textArena = textArena;
+        tasks = new Task[Math.max(initialCapacity, 1)];
+        slotIds = new int[tasks.length];
+        shadows = new byte[tasks.length][];
+        slotCount = 0;
+        taskCount = 0;
+        nextId = 1; // Start IDs from 1
+        idIndex = new IntIndexMap(initialCapacity);
+        assigneeIndex = new AssigneeTasks[16];
+        searchIndex = new TrigramIndex();
+        dateIndex = new DateIndex();
+        openDateIndex = new DateIndex();
+    }
+    
+    /**
+     * Add a new task (CREATE operation)
+     * Sprint 5: Includes completion date and validates it's not in the past
+     */
+    public boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        createTask(taskTitle, taskText, assignedTo, completionDate);
+        return true;
+    }
+    
+    /**
+     * Validate and add a new task, returning it with its assigned ID
+     */
+    Task createTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        checkAdd(taskTitle, taskText, completionDate);
+        
+        // Create and add new task
+        Task newTask = newTask(nextId, taskTitle, taskText, assignedTo, completionDate);
+        append(newTask);
+        nextId++; // Increment ID for next task
+        compactStep();
+        return newTask;
+    }
+    
+    // VALIDATION - also used by DurableTaskDAO to check a change before logging it,
+    // and by the columnar and mapped stores so every TaskDAO applies the same rules
+    
+    /**
+     * Throw if addTask would reject these fields
+     */
+    static void checkAdd(String taskTitle, String taskText, LocalDate completionDate) throws TaskException {
+        checkFields(taskTitle, taskText, completionDate);
+        
+        // Sprint 5: Ensure date is not in the past
+        if (DateCodec.toDay(completionDate) < DateCodec.today()) {
+            throw new TaskException("Completion date cannot be in the past.");
+        }
+    }
+    
+    /**
+     * Throw if updateTask would reject the change (updates may keep a date in the past)
+     */
+    void checkUpdate(int taskId, String taskTitle, String taskText, LocalDate completionDate) throws TaskException {
+        checkFields(taskTitle, taskText, completionDate);
+        slotOf(taskId);
+    }
+    
+    /**
+     * Throw if the task doesn't exist
+     */
+    void checkExists(int taskId) throws TaskException {
+        slotOf(taskId);
+    }
+    
+    /**
+     * Throw if markTaskAsCompleted would reject the call
+     * Only the assigned user can mark their own tasks as completed
+     */
+    void checkCompletable(int taskId, String username) throws VisitorException, TaskException {
+        completableSlot(taskId, username);
+    }
+    
+    /**
+     * Slot of a task the user may mark as completed
+     */
+    private int completableSlot(int taskId, String username) throws VisitorException, TaskException {
+        // Find the task (throws if it doesn't exist)
+        int slot = slotOf(taskId);
+        Task task = tasks[slot];
+        
+        // Ensure user can only mark their own tasks
+        if (!isAssignedTo(task, username)) {
+            throw new VisitorException("You can only mark tasks assigned to you as completed.");
+        }
+        
+        // Check if already completed
+        if (task.isCompleted()) {
+            throw new VisitorException("Task is already marked as completed.");
+        }
+        return slot;
+    }
+    
+    /**
+     * Throw if addTask or updateTask would reject these fields
+     */
+    static void checkFields(String taskTitle, String taskText, LocalDate completionDate) throws TaskException {
+        // Validate title
+        if (taskTitle == null || taskTitle.trim().isEmpty()) {
+            throw new TaskException("Task title cannot be empty.");
+        }
+        
+        // Validate description
+        if (taskText == null || taskText.trim().isEmpty()) {
+            throw new TaskException("Task description cannot be empty.");
+        }
+        
+        // Validate completion date exists
+        if (completionDate == null) {
+            throw new TaskException("Completion date cannot be null.");
+        }
+    }
+    
+    /**
+     * Put back a task read from disk, without the add/update validation
+     * (a saved completion date may be in the past by now)
+     * Replaces the task if its ID exists, otherwise appends it, so new IDs must arrive in increasing order
+     */
+    void restoreTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate, boolean completed) {
+        int slot = idIndex.get(taskId);
+        if (slot != IntIndexMap.NOT_FOUND) {
+            Task task = copyForWrite(slot);
+            unindexTask(slot);
+            task.setTaskTitle(taskTitle);
+            task.setTaskText(taskText);
+            task.setAssignedTo(assignedTo);
+            task.setCompletionDate(completionDate);
+            task.setCompleted(completed);
+            tasks[slot] = task;
+            indexTask(slot);
+            return;
+        }
+        if (taskId < nextId) {
+            throw new IllegalStateException("Task " + taskId + " restored out of order.");
+        }
+        Task task = newTask(taskId, taskTitle, taskText, assignedTo, completionDate);
+        task.setCompleted(completed);
+        append(task);
+        nextId = taskId + 1;
+        compactStep();
+    }
+    
+    /**
+     * The task in a slot in a form a write may change, to be stored back in the slot
+     * A heap task may be in a caller's hands (see published), so it is copied and the
+     * caller keeps a consistent old version (copy-on-write). Off-heap tasks never leave
+     * the store and change in place
+     */
+    private Task copyForWrite(int slot) {
+        Task task = tasks[slot];
+        if (textArena != null) {
+            return task;
+        }
+        Task copy = new Task(task.getTaskId(), task.getTaskTitle(), task.getTaskText(), task.getAssignedTo(), task.getCompletionDate());
+        copy.setCompleted(task.isCompleted());
+        return copy;
+    }
+    
+    /**
+     * Create a Task object, off-heap when this store has a text arena
+     */
+    private Task newTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) {
+        if (textArena != null) {
+            return new OffHeapTask(textArena, taskId, taskTitle, taskText, assignedTo, completionDate);
+        }
+        return new Task(taskId, taskTitle, taskText, assignedTo, completionDate);
+    }
+    
+    /**
+     * The off-heap text arena (for its metrics), or null
+     */
+    OffHeapTextArena getTextArena() {
+        return textArena;
+    }
+    
+    /**
+     * Scans over at least this many tasks (or search candidates) are split across
+     * the common fork/join pool; Integer.MAX_VALUE keeps every scan sequential
+     */
+    void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1.");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+    
+    /**
+     * Run a scan over the items [0, length) - directly below the parallel threshold
+     * (or on a single-core machine), otherwise in chunks on the common fork/join pool
+     */
+    private <R> R scanRange(int length, RangeScan<R> scan, BinaryOperator<R> merge) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (length < parallelThreshold || parallelism < 2) {
+            return scan.scan(0, length);
+        }
+        int chunk = Math.max(PARALLEL_MIN_CHUNK, length / (parallelism * 4));
+        return ForkJoinPool.commonPool().invoke(new RangeTask<>(0, length, chunk, scan, merge));
+    }
+    
+    private static ArrayList<Task> concat(ArrayList<Task> left, ArrayList<Task> right) {
+        left.addAll(right);
+        return left;
+    }
+    
+    /**
+     * ID the next added task will get
+     */
+    int getNextId() {
+        return nextId;
+    }
+    
+    /**
+     * Never hand out an ID below nextId again (IDs of deleted tasks stay used)
+     */
+    void reserveIdsBelow(int nextId) {
+        this.nextId = Math.max(this.nextId, nextId);
+    }
+    
+    /**
+     * Store a task in the next free slot and index it
+     * Its ID must be higher than every ID already stored
+     */
+    private void append(Task task) {
+        ensureCapacity(slotCount + 1);
+        tasks[slotCount] = task;
+        slotIds[slotCount] = task.getTaskId();
+        idIndex.put(task.getTaskId(), slotCount);
+        indexTask(slotCount);
+        slotCount++;
+        taskCount++;
+    }
+    
+    /**
+     * Double the task array when it runs out of room
+     */
+    private void ensureCapacity(int required) {
+        if (required > tasks.length) {
+            tasks = Arrays.copyOf(tasks, Math.max(required, tasks.length * 2));
+            slotIds = Arrays.copyOf(slotIds, tasks.length);
+            shadows = Arrays.copyOf(shadows, tasks.length);
+        }
+    }
+    
+    /**
+     * Find the array position of a task, or throw if it doesn't exist
+     */
+    private int slotOf(int taskId) throws TaskException {
+        int slot = idIndex.get(taskId);
+        if (slot == IntIndexMap.NOT_FOUND) {
+            throw new TaskException("Task with ID " + taskId + " not found.");
+        }
+        return slot;
+    }
+    
+    /**
+     * Add the task in a slot to every secondary index (assignee, text and dates)
+     */
+    private void indexTask(int slot) {
+        Task task = tasks[slot];
+        indexAssignee(task);
+        indexText(slot);
+        dateIndex.add(task.getCompletionDay(), task.getTaskId());
+        if (!task.isCompleted()) {
+            openDateIndex.add(task.getCompletionDay(), task.getTaskId());
+        }
+    }
+    
+    /**
+     * Remove the task in a slot from every secondary index
+     * Must be called before any indexed field of the task changes
+     */
+    private void unindexTask(int slot) {
+        Task task = tasks[slot];
+        unindexAssignee(task);
+        unindexText(slot);
+        dateIndex.remove(task.getCompletionDay(), task.getTaskId());
+        openDateIndex.remove(task.getCompletionDay(), task.getTaskId());
+    }
+    
+    /**
+     * Add a task's ID to its assignee's index entry
+     */
+    private void indexAssignee(Task task) {
+        task.internAssignee(symbols);
+        int bucket = task.getAssigneeId() + 1; // NONE (unassigned) gets bucket 0
+        if (bucket >= assigneeIndex.length) {
+            assigneeIndex = Arrays.copyOf(assigneeIndex, Math.max(bucket + 1, assigneeIndex.length * 2));
+        }
+        AssigneeTasks entry = assigneeIndex[bucket];
+        if (entry == null) {
+            entry = new AssigneeTasks();
+            assigneeIndex[bucket] = entry;
+        }
+        entry.byState(task.isCompleted()).add(task.getTaskId());
+        entry.dates.add(task.getCompletionDay(), task.getTaskId());
+        if (!task.isCompleted()) {
+            entry.openDates.add(task.getCompletionDay(), task.getTaskId());
+        }
+    }
+    
+    /**
+     * Remove a task's ID from its assignee's index entry
+     * Must be called before the task's assignee, completion state or date changes
+     */
+    private void unindexAssignee(Task task) {
+        int bucket = task.getAssigneeId() + 1;
+        AssigneeTasks entry = assigneeIndex[bucket];
+        if (entry == null) {
+            return;
+        }
+        entry.byState(task.isCompleted()).remove(task.getTaskId());
+        entry.dates.remove(task.getCompletionDay(), task.getTaskId());
+        entry.openDates.remove(task.getCompletionDay(), task.getTaskId());
+        if (entry.isEmpty()) {
+            assigneeIndex[bucket] = null; // Don't keep entries for users with no tasks
+        }
+    }
+    
+    /**
+     * Index entry of a user's tasks, or null if nothing is assigned to them
+     * A null username means the unassigned tasks
+     * The username is looked up once, the rest are int compares
+     */
+    private AssigneeTasks assigneeEntry(String username) {
+        int assigneeId = symbols.lookup(username);
+        if (username != null && assigneeId == SymbolTable.NONE) {
+            return null;
+        }
+        int bucket = assigneeId + 1;
+        return bucket < assigneeIndex.length ? assigneeIndex[bucket] : null;
+    }
+    
+    /**
+     * Whether a task is assigned to a user, by symbol ID
+     */
+    private boolean isAssignedTo(Task task, String username) {
+        int assigneeId = symbols.lookup(username);
+        return task.getAssigneeId() == assigneeId && (username == null || assigneeId != SymbolTable.NONE);
+    }
+    
+    /**
+     * Build the search shadow of the task in a slot and add it to the trigram index
+     * This is the only place task text gets normalized, searches reuse the shadow
+     */
+    private void indexText(int slot) {
+        shadows[slot] = SearchText.shadow(tasks[slot]);
+        searchIndex.add(slotIds[slot], shadows[slot]);
+    }
+    
+    /**
+     * Remove the task in a slot from the trigram index
+     * Must be called before the task's title, description or assignee change
+     */
+    private void unindexText(int slot) {
+        searchIndex.remove(slotIds[slot], shadows[slot]);
+        shadows[slot] = null;
+    }
+    
+    /**
+     * Exact search check against the precomputed shadow, allocates nothing
+     */
+    private boolean matchesKeyword(int slot, byte[] keyword) {
+        return SearchText.contains(shadows[slot], keyword);
+    }
+    
+    /**
+     * Turn a sorted list of task IDs into the matching Task objects
+     */
+    private Task[] toTasks(SortedIdList ids) {
+        Task[] results = new Task[ids.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = published(idIndex.get(ids.get(i)));
+        }
+        return results;
+    }
+    
+    /**
+     * The task in a slot as handed to callers
+     * Heap tasks are handed out as they are - writes never change a stored heap task,
+     * they store a new version (copyForWrite). Off-heap tasks are copied on heap,
+     * their chunks may be reused after the caller's lock is gone
+     */
+    private Task published(int slot) {
+        Task task = tasks[slot];
+        return textArena != null ? ((OffHeapTask) task).toHeapTask() : task;
+    }
+    
+    /**
+     * Get all tasks (READ operation)
+     * Returns a copy of all active tasks
+     */
+    public Task[] getAllTasks() {
+        Task[] activeTasks = new Task[taskCount];
+        int count = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (tasks[i] != null) {
+                activeTasks[count] = published(i);
+                count++;
+            }
+        }
+        return activeTasks;
+    }
+    
+    /**
+     * Find task by ID (READ operation)
+     * Sprint 5: Throws TaskException if not found
+     */
+    public Task getTaskById(int taskId) throws TaskException {
+        return published(slotOf(taskId));
+    }
+    
+    /**
+     * getTaskById is one IntIndexMap probe and an array read, and stored heap tasks
+     * never change (copy-on-write). Off-heap text can be freed by a write, so that
+     * store's lookups need the read lock
+     */
+    public boolean allowsOptimisticLookups() {
+        return textArena == null;
+    }
+    
+    /**
+     * Update existing task (UPDATE operation)
+     * Sprint 5: Includes completion date parameter
+     */
+    public boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        checkFields(taskTitle, taskText, completionDate);
+        
+        // Find and update task (a new version replaces the stored one)
+        int slot = slotOf(taskId);
+        Task task = copyForWrite(slot);
+        unindexTask(slot);
+        task.setTaskTitle(taskTitle);
+        task.setTaskText(taskText);
+        task.setAssignedTo(assignedTo);
+        task.setCompletionDate(completionDate);
+        tasks[slot] = task;
+        indexTask(slot);
+        return true;
+    }
+    
+    /**
+     * Delete task (DELETE operation)
+     * Leaves a tombstone (null slot) behind, the compactor reclaims it later
+     */
+    public boolean deleteTask(int taskId) throws TaskException {
+        int slot = slotOf(taskId);
+        unindexTask(slot);
+        if (textArena != null) {
+            ((OffHeapTask) tasks[slot]).release(); // Free its off-heap text
+        }
+        idIndex.remove(taskId);
+        tasks[slot] = null;
+        taskCount--;
+        
+        // Start a compaction pass once too many slots are tombstones
+        int tombstones = slotCount - taskCount;
+        if (!compacting && slotCount >= COMPACTION_MIN_SLOTS && tombstones > slotCount * COMPACTION_THRESHOLD) {
+            compacting = true;
+            compactRead = 0;
+            compactWrite = 0;
+        }
+        compactStep();
+        return true;
+    }
+    
+    /**
+     * Do a bounded amount of compaction work (at most COMPACTION_STEP slots)
+     * Live tasks slide left in their original order, so iteration order never changes
+     */
+    private void compactStep() {
+        if (!compacting) {
+            return;
+        }
+        int end = Math.min(slotCount, compactRead + COMPACTION_STEP);
+        while (compactRead < end) {
+            Task task = tasks[compactRead];
+            if (task != null) {
+                if (compactRead != compactWrite) {
+                    tasks[compactWrite] = task;
+                    slotIds[compactWrite] = task.getTaskId();
+                    shadows[compactWrite] = shadows[compactRead];
+                    tasks[compactRead] = null;
+                    shadows[compactRead] = null;
+                    idIndex.put(task.getTaskId(), compactWrite);
+                }
+                compactWrite++;
+            }
+            compactRead++;
+        }
+        
+        // Pass finished - everything after compactWrite is now empty
+        if (compactRead == slotCount) {
+            slotCount = compactWrite;
+            compacting = false;
+        }
+    }
+    
+    /**
+     * Search tasks by keyword (SEARCH operation)
+     * Searches in title, description, and assignedTo fields
+     * Keywords of 3+ characters are narrowed down with the trigram index first,
+     * shorter ones fall back to a full scan; large scans run in parallel
+     */
+    public Task[] searchTasks(String keyword) {
+        byte[] foldedKeyword = SearchText.keyword(keyword);
+        SortedIdList candidates = searchIndex.candidates(foldedKeyword);
+        ArrayList<Task> results;
+        
+        if (candidates != null) {
+            // Confirm each candidate, trigram hits alone don't prove a substring match
+            results = scanRange(candidates.size(), (from, to) -> {
+                ArrayList<Task> found = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    int slot = idIndex.get(candidates.get(i));
+                    if (matchesKeyword(slot, foldedKeyword)) {
+                        found.add(published(slot));
+                    }
+                }
+                return found;
+            }, TaskDAOImpl::concat);
+        } else {
+            // Search through all tasks
+            results = scanRange(slotCount, (from, to) -> {
+                ArrayList<Task> found = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    if (tasks[i] != null && matchesKeyword(i, foldedKeyword)) {
+                        found.add(published(i));
+                    }
+                }
+                return found;
+            }, TaskDAOImpl::concat);
+        }
+        return results.toArray(new Task[0]);
+    }
+    
+    /**
+     * Get tasks assigned to a specific user
+     * Used by visitors to see their tasks
+     * Merges the user's incomplete and completed ID lists, so results stay in ID order
+     */
+    public Task[] getTasksByAssignee(String username) {
+        AssigneeTasks entry = assigneeEntry(username);
+        if (entry == null) {
+            return new Task[0];
+        }
+        
+        SortedIdList open = entry.incomplete;
+        SortedIdList done = entry.completed;
+        Task[] results = new Task[open.size() + done.size()];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < results.length; k++) {
+            int id;
+            if (j >= done.size() || (i < open.size() && open.get(i) < done.get(j))) {
+                id = open.get(i);
+                i++;
+            } else {
+                id = done.get(j);
+                j++;
+            }
+            results[k] = published(idIndex.get(id));
+        }
+        return results;
+    }
+    
+    /**
+     * Sprint 5: Get only completed tasks for a user
+     */
+    public Task[] getCompletedTasks(String username) {
+        AssigneeTasks entry = assigneeEntry(username);
+        return entry == null ? new Task[0] : toTasks(entry.completed);
+    }
+    
+    /**
+     * Sprint 5: Get only incomplete tasks for a user
+     */
+    public Task[] getIncompleteTasks(String username) {
+        AssigneeTasks entry = assigneeEntry(username);
+        return entry == null ? new Task[0] : toTasks(entry.incomplete);
+    }
+    
+    /**
+     * Sprint 5: Mark task as completed
+     * Only the assigned user can mark their own tasks as completed
+     */
+    public boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException {
+        int slot = completableSlot(taskId, username);
+        
+        // Mark as completed and move it to the user's completed list
+        unindexAssignee(tasks[slot]);
+        openDateIndex.remove(tasks[slot].getCompletionDay(), taskId);
+        Task task = copyForWrite(slot);
+        task.setCompleted(true);
+        tasks[slot] = task;
+        indexAssignee(task);
+        return true;
+    }
+    
+    /**
+     * Get total number of tasks
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+    
+    /**
+     * Sprint 5: Sort tasks by completion date
+     * Reads the date index in order instead of sorting - no comparisons needed
+     * Tasks with the same date keep their ID order (same as the old stable bubble sort)
+     */
+    public Task[] getTasksSortedByDate(boolean ascending) {
+        Task[] sortedTasks = new Task[taskCount];
+        int count = 0;
+        for (SortedIdList ids : dateIndex.buckets(ascending)) {
+            for (int i = 0; i < ids.size(); i++) {
+                sortedTasks[count] = published(idIndex.get(ids.get(i)));
+                count++;
+            }
+        }
+        return sortedTasks;
+    }
+    
+    /**
+     * Get tasks due between two dates (both inclusive)
+     * Runs in O(log n + k) over the date index, k being the tasks due in the range
+     */
+    public Task[] getTasksDueBetween(LocalDate from, LocalDate to, String assignee, TaskStatus status) throws TaskException {
+        if (from == null || to == null) {
+            throw new TaskException("Dates cannot be null.");
+        }
+        if (from.isAfter(to)) {
+            throw new TaskException("Start date must not be after end date.");
+        }
+        
+        DateIndex index = dateIndexFor(assignee, status == TaskStatus.INCOMPLETE);
+        if (index == null) {
+            return new Task[0];
+        }
+        return collectByDate(index.range(DateCodec.toDay(from), DateCodec.toDay(to)), status);
+    }
+    
+    /**
+     * Get tasks due from today up to N days from now
+     */
+    public Task[] getTasksDueWithinDays(int days, String assignee, TaskStatus status) throws TaskException {
+        if (days < 0) {
+            throw new TaskException("Number of days cannot be negative.");
+        }
+        LocalDate today = LocalDate.now();
+        return getTasksDueBetween(today, today.plusDays(days), assignee, status);
+    }
+    
+    /**
+     * Get incomplete tasks whose completion date has already passed
+     */
+    public Task[] getOverdueTasks(String assignee) {
+        DateIndex index = dateIndexFor(assignee, true);
+        if (index == null) {
+            return new Task[0];
+        }
+        return collectByDate(index.before(DateCodec.today()), TaskStatus.INCOMPLETE);
+    }
+    
+    /**
+     * Date index a date query reads - the assignee's own one when filtering by assignee,
+     * so only that user's tasks are visited. A null assignee means everyone's tasks
+     * openOnly = only incomplete tasks wanted, the smaller open index is enough
+     * Returns null if nothing is assigned to the assignee
+     */
+    private DateIndex dateIndexFor(String assignee, boolean openOnly) {
+        if (assignee == null) {
+            return openOnly ? openDateIndex : dateIndex;
+        }
+        AssigneeTasks entry = assigneeEntry(assignee);
+        if (entry == null) {
+            return null;
+        }
+        return openOnly ? entry.openDates : entry.dates;
+    }
+    
+    /**
+     * Gather the tasks of some date buckets that pass the status filter
+     */
+    private Task[] collectByDate(Iterable<SortedIdList> buckets, TaskStatus status) {
+        ArrayList<Task> results = new ArrayList<>();
+        for (SortedIdList ids : buckets) {
+            for (int i = 0; i < ids.size(); i++) {
+                int slot = idIndex.get(ids.get(i));
+                Task task = tasks[slot];
+                if (status.matches(task)) {
+                    results.add(published(slot));
+                }
+            }
+        }
+        return results.toArray(new Task[0]);
+    }
+    
+    /**
+     * Page through all tasks in ID order
+     */
+    public TaskPage getAllTasksPage(int afterTaskId, int pageSize) {
+        checkPageSize(pageSize);
+        ArrayList<Task> page = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        for (int i = firstSlotAfter(afterTaskId); i < slotCount; i++) {
+            if (tasks[i] != null) {
+                if (page.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                page.add(published(i));
+            }
+        }
+        return new TaskPage(page.toArray(new Task[0]), afterTaskId, hasMore);
+    }
+    
+    /**
+     * Page through search results in ID order
+     */
+    public TaskPage searchTasksPage(String keyword, int afterTaskId, int pageSize) {
+        checkPageSize(pageSize);
+        byte[] foldedKeyword = SearchText.keyword(keyword);
+        SortedIdList[] postings = searchIndex.postingLists(foldedKeyword);
+        ArrayList<Task> page = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        
+        if (postings != null) {
+            // Intersect lazily from the cursor, stopping at the first hit past the page
+            int id = afterTaskId;
+            while ((id = TrigramIndex.nextCandidate(postings, id)) != -1) {
+                int slot = idIndex.get(id);
+                if (matchesKeyword(slot, foldedKeyword)) {
+                    if (page.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    page.add(published(slot));
+                }
+            }
+        } else {
+            // Keyword too short for the index - scan from the cursor position
+            for (int i = firstSlotAfter(afterTaskId); i < slotCount; i++) {
+                if (tasks[i] != null && matchesKeyword(i, foldedKeyword)) {
+                    if (page.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    page.add(published(i));
+                }
+            }
+        }
+        return new TaskPage(page.toArray(new Task[0]), afterTaskId, hasMore);
+    }
+    
+    /**
+     * Page through a user's tasks in ID order
+     */
+    public TaskPage getTasksByAssigneePage(String username, int afterTaskId, int pageSize) {
+        checkPageSize(pageSize);
+        AssigneeTasks entry = assigneeEntry(username);
+        if (entry == null) {
+            return new TaskPage(new Task[0], afterTaskId, false);
+        }
+        
+        // Merge the incomplete and completed lists, starting after the cursor in both
+        SortedIdList open = entry.incomplete;
+        SortedIdList done = entry.completed;
+        int i = open.indexAfter(afterTaskId);
+        int j = done.indexAfter(afterTaskId);
+        int available = (open.size() - i) + (done.size() - j);
+        Task[] page = new Task[Math.min(pageSize, available)];
+        for (int k = 0; k < page.length; k++) {
+            int id;
+            if (j >= done.size() || (i < open.size() && open.get(i) < done.get(j))) {
+                id = open.get(i);
+                i++;
+            } else {
+                id = done.get(j);
+                j++;
+            }
+            page[k] = published(idIndex.get(id));
+        }
+        return new TaskPage(page, afterTaskId, available > page.length);
+    }
+    
+    /**
+     * Page through a user's completed tasks in ID order
+     */
+    public TaskPage getCompletedTasksPage(String username, int afterTaskId, int pageSize) {
+        checkPageSize(pageSize);
+        AssigneeTasks entry = assigneeEntry(username);
+        return entry == null ? new TaskPage(new Task[0], afterTaskId, false) : pageOf(entry.completed, afterTaskId, pageSize);
+    }
+    
+    /**
+     * Page through a user's incomplete tasks in ID order
+     */
+    public TaskPage getIncompleteTasksPage(String username, int afterTaskId, int pageSize) {
+        checkPageSize(pageSize);
+        AssigneeTasks entry = assigneeEntry(username);
+        return entry == null ? new TaskPage(new Task[0], afterTaskId, false) : pageOf(entry.incomplete, afterTaskId, pageSize);
+    }
+    
+    /**
+     * Build one page from a sorted ID list
+     */
+    private TaskPage pageOf(SortedIdList ids, int afterTaskId, int pageSize) {
+        int start = ids.indexAfter(afterTaskId);
+        Task[] page = new Task[Math.min(pageSize, ids.size() - start)];
+        for (int k = 0; k < page.length; k++) {
+            page[k] = published(idIndex.get(ids.get(start + k)));
+        }
+        return new TaskPage(page, afterTaskId, start + page.length < ids.size());
+    }
+    
+    private static void checkPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+    }
+    
+    /**
+     * First slot holding a task ID greater than afterTaskId (binary search on slotIds)
+     * While a compaction pass runs, the slots between compactWrite and compactRead are
+     * empty and unordered, so the packed part and the unvisited part are searched separately
+     */
+    private int firstSlotAfter(int afterTaskId) {
+        if (compacting) {
+            int slot = firstSlotAfter(0, compactWrite, afterTaskId);
+            return slot < compactWrite ? slot : firstSlotAfter(compactRead, slotCount, afterTaskId);
+        }
+        return firstSlotAfter(0, slotCount, afterTaskId);
+    }
+    
+    private int firstSlotAfter(int from, int to, int afterTaskId) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (slotIds[mid] <= afterTaskId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Check for duplicate task titles
+     * Single pass that groups tasks by case-folded title in a hash map - O(n)
+     * Large stores group slot ranges in parallel and merge the maps in slot order
+     */
+    public DuplicateReport checkDuplicates() {
+        // Insertion order keeps groups sorted by their first (lowest) task ID
+        LinkedHashMap<String, SortedIdList> byTitle = scanRange(slotCount, (from, to) -> {
+            LinkedHashMap<String, SortedIdList> range = new LinkedHashMap<>();
+            for (int i = from; i < to; i++) {
+                if (tasks[i] == null) {
+                    continue;
+                }
+                String key = DuplicateReport.foldCase(tasks[i].getTaskTitle());
+                SortedIdList ids = range.get(key);
+                if (ids == null) {
+                    ids = new SortedIdList();
+                    range.put(key, ids);
+                }
+                ids.add(tasks[i].getTaskId());
+            }
+            return range;
+        }, (left, right) -> {
+            // Every ID on the right is higher, so the lists just get appended to
+            for (Map.Entry<String, SortedIdList> group : right.entrySet()) {
+                SortedIdList ids = left.get(group.getKey());
+                if (ids == null) {
+                    left.put(group.getKey(), group.getValue());
+                } else {
+                    for (int i = 0; i < group.getValue().size(); i++) {
+                        ids.add(group.getValue().get(i));
+                    }
+                }
+            }
+            return left;
+        });
+        
+        // Keep only titles used by more than one task
+        ArrayList<DuplicateGroup> groups = new ArrayList<>();
+        for (SortedIdList ids : byTitle.values()) {
+            if (ids.size() > 1) {
+                int[] taskIds = new int[ids.size()];
+                for (int i = 0; i < taskIds.length; i++) {
+                    taskIds[i] = ids.get(i);
+                }
+                groups.add(new DuplicateGroup(tasks[idIndex.get(taskIds[0])].getTaskTitle(), taskIds));
+            }
+        }
+        return new DuplicateReport(groups.toArray(new DuplicateGroup[0]));
+    }
+}
+
+/**
+ * ConcurrentTaskDAO - thread-safe wrapper around another TaskDAO
+ * Writes take the write lock, so they are serialized and task IDs are handed out
+ * atomically in lock order.
+ * getTaskById and getTaskCount never block when the delegate allows it (see
+ * OptimisticLookups): they run under a StampedLock optimistic stamp and are only
+ * repeated under the read lock if a write slipped in meanwhile. All other reads walk
+ * TreeMaps, trigram posting lists or off-heap text that a concurrent write can leave
+ * half-updated, so they always hold the read lock.
+ * Blocking reads and writes use a fair ReentrantReadWriteLock - with StampedLock's
+ * read lock, long scans that overlap each other starved the writers. The StampedLock
+ * is only write-locked, by a writer already holding the fair write lock, so it never
+ * blocks anyone and just stamps the writes for the optimistic lookups.
+ */
+class ConcurrentTaskDAO implements TaskDAO {
+    private final TaskDAO delegate;
+    private final DeferredDurability durability; // Same object as delegate when it supports deferral, else null
+    private final boolean optimisticLookups;     // Delegate allows getTaskById/getTaskCount without the lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private final StampedLock writeStamps = new StampedLock(); // See class comment
+    
+    /**
+     * A read that may throw TaskException
+     */
+    private interface TaskRead<T> {
+        T run() throws TaskException;
+    }
+    
+    /**
+     * Rows a read gave back, for its TaskOperationEvent
+     */
+    private interface RowCount<T> {
+        int of(T result);
+    }
+    
+    private static final RowCount<Task[]> TASKS = tasks -> tasks.length;
+    private static final RowCount<TaskPage> PAGE = page -> page.getTasks().length;
+    private static final RowCount<DuplicateReport> DUPLICATES = ConcurrentTaskDAO::duplicateCount;
+    
+    public ConcurrentTaskDAO(TaskDAO delegate) {
+        this.delegate = delegate;
+        if (delegate instanceof DeferredDurability) {
+            // Wait for the disk after releasing the write lock, not while holding it
+            durability = (DeferredDurability) delegate;
+            durability.deferDurability();
+        } else {
+            durability = null;
+        }
+        optimisticLookups = delegate instanceof OptimisticLookups && ((OptimisticLookups) delegate).allowsOptimisticLookups();
+    }
+    
+    /**
+     * Run a read under the read lock - no writer can run meanwhile
+     */
+    private <T> T locked(TaskRead<T> read) throws TaskException {
+        lock.readLock().lock();
+        try {
+            return read.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Run a lookup optimistically, falling back to the read lock if a write interfered
+     * A write in progress can make the optimistic attempt throw - that only counts
+     * as an error if no write happened meanwhile
+     */
+    private <T> T optimistic(TaskRead<T> read) throws TaskException {
+        long stamp = optimisticLookups ? writeStamps.tryOptimisticRead() : 0;
+        if (stamp != 0) {
+            try {
+                T result = read.run();
+                if (writeStamps.validate(stamp)) {
+                    return result;
+                }
+            } catch (TaskException | RuntimeException e) {
+                if (writeStamps.validate(stamp)) {
+                    throw e; // Genuine error, not caused by a concurrent write
+                }
+            }
+        }
+        return locked(read);
+    }
+    
+    /**
+     * Take the write lock, returns the stamp to pass to unlockWrite()
+     */
+    private long lockWrite() {
+        lock.writeLock().lock();
+        return writeStamps.writeLock(); // Never waits - only writers take it
+    }
+    
+    private void unlockWrite(long stamp) {
+        writeStamps.unlockWrite(stamp);
+        lock.writeLock().unlock();
+    }
+    
+    /**
+     * Run a read under the read lock, as one TaskOperationEvent
+     * Its rows are counted before the lock is released, so they match the result
+     */
+    private <T> T readChecked(String operation, String user, RowCount<T> rows, TaskRead<T> read) throws TaskException {
+        TaskOperationEvent event = TaskOperationEvent.start(operation, user);
+        try {
+            lock.readLock().lock();
+            try {
+                T result = read.run();
+                if (event.isEnabled()) {
+                    event.setRows(delegate.getTaskCount(), rows.of(result));
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        } catch (TaskException | RuntimeException | Error e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+    
+    /**
+     * Same as readChecked(), for reads that never throw TaskException
+     */
+    private <T> T read(String operation, String user, RowCount<T> rows, Supplier<T> read) {
+        try {
+            return readChecked(operation, user, rows, read::get);
+        } catch (TaskException e) {
+            throw new IllegalStateException(e); // Cannot happen, the supplier doesn't throw it
+        }
+    }
+    
+    public boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        TaskOperationEvent event = TaskOperationEvent.start("addTask", assignedTo);
+        try {
+            boolean result;
+            long stamp = lockWrite();
+            try {
+                result = delegate.addTask(taskTitle, taskText, assignedTo, completionDate);
+            } finally {
+                unlockWrite(stamp);
+            }
+            return durable(result);
+        } catch (TaskException | RuntimeException | Error e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+    
+    public boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        TaskOperationEvent event = TaskOperationEvent.start("updateTask", assignedTo);
+        try {
+            boolean result;
+            long stamp = lockWrite();
+            try {
+                result = delegate.updateTask(taskId, taskTitle, taskText, assignedTo, completionDate);
+            } finally {
+                unlockWrite(stamp);
+            }
+            return durable(result);
+        } catch (TaskException | RuntimeException | Error e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+    
+    public boolean deleteTask(int taskId) throws TaskException {
+        TaskOperationEvent event = TaskOperationEvent.start("deleteTask", null);
+        try {
+            boolean result;
+            long stamp = lockWrite();
+            try {
+                result = delegate.deleteTask(taskId);
+            } finally {
+                unlockWrite(stamp);
+            }
+            return durable(result);
+        } catch (TaskException | RuntimeException | Error e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+    
+    public boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException {
+        TaskOperationEvent event = TaskOperationEvent.start("markTaskAsCompleted", username);
+        try {
+            boolean result;
+            long stamp = lockWrite();
+            try {
+                result = delegate.markTaskAsCompleted(taskId, username);
+            } finally {
+                unlockWrite(stamp);
+            }
+            return durable(result);
+        } catch (VisitorException | TaskException | RuntimeException | Error e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+    
+    private static int duplicateCount(DuplicateReport report) {
+        int count = 0;
+        for (DuplicateGroup group : report.getGroups()) {
+            count += group.getTaskIds().length;
+        }
+        return count;
+    }
+    
+    /**
+     * Wait, outside the lock, until a write the delegate deferred is on disk
+     */
+    private boolean durable(boolean result) throws TaskException {
+        if (durability != null) {
+            durability.awaitDurable();
+        }
+        return result;
+    }
+    
+    public Task getTaskById(int taskId) throws TaskException {
+        return optimistic(() -> delegate.getTaskById(taskId));
+    }
+    
+    public Task[] getAllTasks() {
+        return read("getAllTasks", null, TASKS, delegate::getAllTasks);
+    }
+    
+    public Task[] searchTasks(String keyword) {
+        return read("searchTasks", null, TASKS, () -> delegate.searchTasks(keyword));
+    }
+    
+    public Task[] getTasksByAssignee(String username) {
+        return read("getTasksByAssignee", username, TASKS, () -> delegate.getTasksByAssignee(username));
+    }
+    
+    public Task[] getCompletedTasks(String username) {
+        return read("getCompletedTasks", username, TASKS, () -> delegate.getCompletedTasks(username));
+    }
+    
+    public Task[] getIncompleteTasks(String username) {
+        return read("getIncompleteTasks", username, TASKS, () -> delegate.getIncompleteTasks(username));
+    }
+    
+    public int getTaskCount() {
+        if (optimisticLookups) {
+            long stamp = writeStamps.tryOptimisticRead();
+            int count = delegate.getTaskCount();
+            if (stamp != 0 && writeStamps.validate(stamp)) {
+                return count;
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return delegate.getTaskCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Task[] getTasksSortedByDate(boolean ascending) {
+        return read("getTasksSortedByDate", null, TASKS, () -> delegate.getTasksSortedByDate(ascending));
+    }
+    
+    public DuplicateReport checkDuplicates() {
+        return read("checkDuplicates", null, DUPLICATES, delegate::checkDuplicates);
+    }
+    
+    public Task[] getTasksDueBetween(LocalDate from, LocalDate to, String assignee, TaskStatus status) throws TaskException {
+        return readChecked("getTasksDueBetween", assignee, TASKS, () -> delegate.getTasksDueBetween(from, to, assignee, status));
+    }
+    
+    public Task[] getTasksDueWithinDays(int days, String assignee, TaskStatus status) throws TaskException {
+        return readChecked("getTasksDueWithinDays", assignee, TASKS, () -> delegate.getTasksDueWithinDays(days, assignee, status));
+    }
+    
+    public Task[] getOverdueTasks(String assignee) {
+        return read("getOverdueTasks", assignee, TASKS, () -> delegate.getOverdueTasks(assignee));
+    }
+    
+    public TaskPage getAllTasksPage(int afterTaskId, int pageSize) {
+        return read("getAllTasksPage", null, PAGE, () -> delegate.getAllTasksPage(afterTaskId, pageSize));
+    }
+    
+    public TaskPage searchTasksPage(String keyword, int afterTaskId, int pageSize) {
+        return read("searchTasksPage", null, PAGE, () -> delegate.searchTasksPage(keyword, afterTaskId, pageSize));
+    }
+    
+    public TaskPage getTasksByAssigneePage(String username, int afterTaskId, int pageSize) {
+        return read("getTasksByAssigneePage", username, PAGE, () -> delegate.getTasksByAssigneePage(username, afterTaskId, pageSize));
+    }
+    
+    public TaskPage getCompletedTasksPage(String username, int afterTaskId, int pageSize) {
+        return read("getCompletedTasksPage", username, PAGE, () -> delegate.getCompletedTasksPage(username, afterTaskId, pageSize));
+    }
+    
+    public TaskPage getIncompleteTasksPage(String username, int afterTaskId, int pageSize) {
+        return read("getIncompleteTasksPage", username, PAGE, () -> delegate.getIncompleteTasksPage(username, afterTaskId, pageSize));
+    }
+}
+
+/**
+ * Character heap for the columnar engine
+ * Strings are stored back to back in one char array and addressed by int handles
+ * Released strings stay as garbage until the owner copies the live ones to a new heap
+ */
+class StringHeap {
+    private char[] chars;
+    private int usedChars;
+    private int[] starts;   // Handle -> first char
+    private int[] lengths;  // Handle -> length
+    private int count;      // Handles handed out
+    private long garbageChars;
+    
+    StringHeap() {
+        this(1024, 64);
+    }
+    
+    StringHeap(int charCapacity, int stringCapacity) {
+        chars = new char[Math.max(charCapacity, 16)];
+        starts = new int[Math.max(stringCapacity, 4)];
+        lengths = new int[starts.length];
+    }
+    
+    /**
+     * Store a string and return its handle
+     */
+    int add(String value) {
+        int length = value.length();
+        if (usedChars + length > chars.length) {
+            long capacity = Math.max((long) usedChars + length, (long) chars.length * 2);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("String heap is full.");
+            }
+            chars = Arrays.copyOf(chars, (int) capacity);
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        value.getChars(0, length, chars, usedChars);
+        starts[count] = usedChars;
+        lengths[count] = length;
+        usedChars += length;
+        return count++;
+    }
+    
+    String get(int handle) {
+        return new String(chars, starts[handle], lengths[handle]);
+    }
+    
+    /**
+     * Compare a stored string with another without building a String
+     */
+    boolean equalsString(int handle, String value) {
+        int length = lengths[handle];
+        if (length != value.length()) {
+            return false;
+        }
+        int start = starts[handle];
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Mark a string as no longer used (its chars are reclaimed by the next rebuild)
+     */
+    void release(int handle) {
+        garbageChars += lengths[handle];
+    }
+    
+    int getUsedChars() {
+        return usedChars;
+    }
+    
+    long getGarbageChars() {
+        return garbageChars;
+    }
+}
+
+/**
+ * ColumnarTaskDAO - struct-of-arrays task storage
+ * Each task is a row spread over parallel primitive columns: IDs, epoch-day dates,
+ * a completion bitset and dictionary-encoded assignees, with titles and descriptions
+ * in a StringHeap. Rows stay in ID order, filters and the date sort run over the
+ * arrays, and Task objects are only built for the rows a method returns (they are
+ * copies - change tasks through the DAO, not through the returned objects).
+ */
+class ColumnarTaskDAO implements TaskDAO {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double COMPACTION_THRESHOLD = 0.25; // Compact when 25% of rows are deleted
+    private static final int COMPACTION_MIN_ROWS = 64;
+    private static final int COMPACTION_STEP = 256;          // Max rows visited by the compactor per write
+    
+    // Columns, one entry per row
+    private int[] ids;
+    private int[] epochDays;
+    private int[] assigneeIds;   // Symbol IDs (symbols)
+    private int[] titles;        // StringHeap handles
+    private int[] texts;
+    private long[] completed;    // Bitset: row is completed
+    private long[] deleted;      // Bitset: row was deleted (compacted away later)
+    
+    private int rowCount;        // Rows in use, including deleted ones
+    private int taskCount;       // Live rows
+    private int nextId;
+    private StringHeap heap;
+    private final SymbolTable symbols = new SymbolTable(); // Assignee dictionary
+    
+    // Incremental compaction state (same scheme as TaskDAOImpl): rows [0, compactWrite) are
+    // packed, [compactWrite, compactRead) are deleted and [compactRead, rowCount) are not visited yet.
+    // If the pass also rebuilds the string heap, packed rows keep their strings in packedHeap
+    private boolean compacting;
+    private int compactRead;
+    private int compactWrite;
+    private StringHeap packedHeap;
+    
+    /**
+     * Tests a row using the columns only
+     */
+    private interface RowFilter {
+        boolean test(int row);
+    }
+    
+    public ColumnarTaskDAO() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * initialCapacity is only a sizing hint, the columns grow past it
+     */
+    public ColumnarTaskDAO(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        ids = new int[capacity];
+        epochDays = new int[capacity];
+        assigneeIds = new int[capacity];
+        titles = new int[capacity];
+        texts = new int[capacity];
+        completed = new long[(capacity + 63) >>> 6];
+        deleted = new long[completed.length];
+        heap = new StringHeap(capacity * 32, capacity * 2);
+        nextId = 1;
+    }
+    
+    // BITSET AND DICTIONARY HELPERS
+    
+    private static boolean getBit(long[] bits, int row) {
+        return (bits[row >>> 6] & (1L << row)) != 0;
+    }
+    
+    private static void setBit(long[] bits, int row, boolean value) {
+        if (value) {
+            bits[row >>> 6] |= 1L << row;
+        } else {
+            bits[row >>> 6] &= ~(1L << row);
+        }
+    }
+    
+    private boolean isLive(int row) {
+        return !getBit(deleted, row);
+    }
+    
+    /**
+     * Dictionary code for an assignee, adding it the first time it is seen
+     */
+    private int encodeAssignee(String username) {
+        return symbols.intern(username);
+    }
+    
+    /**
+     * Dictionary code for a username, or -1 if no task was ever assigned to it
+     */
+    private int assigneeCode(String username) {
+        return symbols.lookup(username);
+    }
+    
+    /**
+     * Build a Task object from one row
+     */
+    private Task toTask(int row) {
+        StringHeap strings = heapAt(row);
+        Task task = new Task(ids[row], strings.get(titles[row]), strings.get(texts[row]),
+                             symbols.name(assigneeIds[row]), DateCodec.toDate(epochDays[row]));
+        task.setCompleted(getBit(completed, row));
+        return task;
+    }
+    
+    /**
+     * Row holding a live task, or throw if it doesn't exist
+     */
+    private int rowOf(int taskId) throws TaskException {
+        int row = firstRowAfter(taskId - 1);
+        if (row == rowCount || ids[row] != taskId || !isLive(row)) {
+            throw new TaskException("Task with ID " + taskId + " not found.");
+        }
+        return row;
+    }
+    
+    /**
+     * First row with a task ID greater than afterTaskId (binary search on the ID column)
+     * While a compaction pass runs, the rows between compactWrite and compactRead hold
+     * stale IDs, so the packed part and the unvisited part are searched separately
+     */
+    private int firstRowAfter(int afterTaskId) {
+        if (compacting) {
+            int row = firstRowAfter(0, compactWrite, afterTaskId);
+            return row < compactWrite ? row : firstRowAfter(compactRead, rowCount, afterTaskId);
+        }
+        return firstRowAfter(0, rowCount, afterTaskId);
+    }
+    
+    private int firstRowAfter(int from, int to, int afterTaskId) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] <= afterTaskId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required > ids.length) {
+            int capacity = Math.max(required, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            assigneeIds = Arrays.copyOf(assigneeIds, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            completed = Arrays.copyOf(completed, (capacity + 63) >>> 6);
+            deleted = Arrays.copyOf(deleted, completed.length);
+        }
+    }
+    
+    /**
+     * String heap holding a row's title and description
+     */
+    private StringHeap heapAt(int row) {
+        return compacting && row < compactWrite ? packedHeap : heap;
+    }
+    
+    /**
+     * Start a compaction pass once too many rows are deleted
+     * The pass copies the live strings to a fresh heap when at least half of it is garbage
+     */
+    private void startCompaction() {
+        if (compacting || rowCount < COMPACTION_MIN_ROWS || rowCount - taskCount <= rowCount * COMPACTION_THRESHOLD) {
+            return;
+        }
+        boolean rebuildHeap = heap.getGarbageChars() * 2 > heap.getUsedChars();
+        packedHeap = rebuildHeap ? new StringHeap(heap.getUsedChars(), taskCount * 2) : heap;
+        compacting = true;
+        compactRead = 0;
+        compactWrite = 0;
+    }
+    
+    /**
+     * Do a bounded amount of compaction work (at most COMPACTION_STEP rows)
+     * Live rows slide left over deleted ones in their original order, so scans never see a change.
+     * A moved-from row is marked deleted, so the rows between the two cursors are skipped
+     */
+    private void compactStep() {
+        if (!compacting) {
+            return;
+        }
+        boolean rebuildHeap = packedHeap != heap;
+        int end = Math.min(rowCount, compactRead + COMPACTION_STEP);
+        while (compactRead < end) {
+            int row = compactRead;
+            if (isLive(row)) {
+                int write = compactWrite;
+                ids[write] = ids[row];
+                epochDays[write] = epochDays[row];
+                assigneeIds[write] = assigneeIds[row];
+                titles[write] = rebuildHeap ? packedHeap.add(heap.get(titles[row])) : titles[row];
+                texts[write] = rebuildHeap ? packedHeap.add(heap.get(texts[row])) : texts[row];
+                boolean isCompleted = getBit(completed, row);
+                if (row != write) {
+                    setBit(deleted, row, true);
+                    setBit(deleted, write, false);
+                }
+                setBit(completed, write, isCompleted);
+                compactWrite++;
+            }
+            compactRead++;
+        }
+        
+        // Pass finished - rows from compactWrite on are free (addTask resets their bits)
+        if (compactRead == rowCount) {
+            rowCount = compactWrite;
+            heap = packedHeap;
+            packedHeap = null;
+            compacting = false;
+        }
+    }
+    
+    /**
+     * All live rows that pass a filter, as tasks in ID order
+     */
+    private Task[] collect(RowFilter filter) {
+        ArrayList<Task> results = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (isLive(row) && filter.test(row)) {
+                results.add(toTask(row));
+            }
+        }
+        return results.toArray(new Task[0]);
+    }
+    
+    /**
+     * One keyset page of the live rows that pass a filter
+     */
+    private TaskPage page(RowFilter filter, int afterTaskId, int pageSize) {
+        checkPageSize(pageSize);
+        ArrayList<Task> page = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        for (int row = firstRowAfter(afterTaskId); row < rowCount; row++) {
+            if (isLive(row) && filter.test(row)) {
+                if (page.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                page.add(toTask(row));
+            }
+        }
+        return new TaskPage(page.toArray(new Task[0]), afterTaskId, hasMore);
+    }
+    
+    /**
+     * The page for a user with no tasks - no rows are scanned
+     */
+    private static TaskPage emptyPage(int afterTaskId, int pageSize) {
+        checkPageSize(pageSize);
+        return new TaskPage(new Task[0], afterTaskId, false);
+    }
+    
+    private static void checkPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+    }
+    
+    /**
+     * Live rows that pass a filter, ordered by (date, task ID)
+     * Sorts packed (day << 32 | row) keys - rows are in ID order, so they break date ties
+     */
+    private Task[] collectByDate(RowFilter filter, boolean ascending) {
+        long[] keys = new long[taskCount];
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (isLive(row) && filter.test(row)) {
+                long day = ascending ? epochDays[row] : -(long) epochDays[row];
+                keys[count] = (day << 32) | row;
+                count++;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        Task[] results = new Task[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = toTask((int) keys[i]);
+        }
+        return results;
+    }
+    
+    /**
+     * Same matching rules as TaskDAOImpl.searchTasks (SearchText folding), field by field
+     */
+    private boolean matchesKeyword(int row, byte[] foldedKeyword) {
+        StringHeap strings = heapAt(row);
+        return SearchText.fieldContains(strings.get(titles[row]), foldedKeyword) ||
+               SearchText.fieldContains(strings.get(texts[row]), foldedKeyword) ||
+               SearchText.fieldContains(symbols.name(assigneeIds[row]), foldedKeyword); // NONE has no name
+    }
+    
+    private boolean matchesStatus(int row, TaskStatus status) {
+        return status == TaskStatus.ALL || (status == TaskStatus.COMPLETED) == getBit(completed, row);
+    }
+    
+    // TaskDAO OPERATIONS
+    
+    public boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        // Validate inputs (same rules as TaskDAOImpl)
+        TaskDAOImpl.checkAdd(taskTitle, taskText, completionDate);
+        
+        // Append a row
+        ensureCapacity(rowCount + 1);
+        int row = rowCount;
+        ids[row] = nextId;
+        epochDays[row] = DateCodec.toDay(completionDate);
+        assigneeIds[row] = encodeAssignee(assignedTo);
+        titles[row] = heap.add(taskTitle); // Not visited by a running pass yet, so the current heap
+        texts[row] = heap.add(taskText);
+        setBit(completed, row, false);
+        setBit(deleted, row, false);
+        rowCount++;
+        taskCount++;
+        nextId++;
+        compactStep();
+        return true;
+    }
+    
+    public Task[] getAllTasks() {
+        return collect(row -> true);
+    }
+    
+    public Task getTaskById(int taskId) throws TaskException {
+        return toTask(rowOf(taskId));
+    }
+    
+    public boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        // Validate inputs
+        TaskDAOImpl.checkFields(taskTitle, taskText, completionDate);
+        
+        // Unchanged strings keep their heap entries
+        int row = rowOf(taskId);
+        StringHeap strings = heapAt(row);
+        if (!strings.equalsString(titles[row], taskTitle)) {
+            strings.release(titles[row]);
+            titles[row] = strings.add(taskTitle);
+        }
+        if (!strings.equalsString(texts[row], taskText)) {
+            strings.release(texts[row]);
+            texts[row] = strings.add(taskText);
+        }
+        assigneeIds[row] = encodeAssignee(assignedTo);
+        epochDays[row] = DateCodec.toDay(completionDate);
+        return true;
+    }
+    
+    public boolean deleteTask(int taskId) throws TaskException {
+        int row = rowOf(taskId);
+        setBit(deleted, row, true);
+        heapAt(row).release(titles[row]);
+        heapAt(row).release(texts[row]);
+        taskCount--;
+        startCompaction();
+        compactStep();
+        return true;
+    }
+    
+    public Task[] searchTasks(String keyword) {
+        byte[] foldedKeyword = SearchText.keyword(keyword);
+        return collect(row -> matchesKeyword(row, foldedKeyword));
+    }
+    
+    public Task[] getTasksByAssignee(String username) {
+        int code = assigneeCode(username);
+        return code < 0 ? new Task[0] : collect(row -> assigneeIds[row] == code);
+    }
+    
+    public Task[] getCompletedTasks(String username) {
+        int code = assigneeCode(username);
+        return code < 0 ? new Task[0] : collect(row -> assigneeIds[row] == code && getBit(completed, row));
+    }
+    
+    public Task[] getIncompleteTasks(String username) {
+        int code = assigneeCode(username);
+        return code < 0 ? new Task[0] : collect(row -> assigneeIds[row] == code && !getBit(completed, row));
+    }
+    
+    public boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException {
+        int row = rowOf(taskId);
+        
+        // Ensure user can only mark their own tasks
+        int code = assigneeCode(username);
+        if (assigneeIds[row] != code || (code < 0 && username != null)) {
+            throw new VisitorException("You can only mark tasks assigned to you as completed.");
+        }
+        
+        // Check if already completed
+        if (getBit(completed, row)) {
+            throw new VisitorException("Task is already marked as completed.");
+        }
+        setBit(completed, row, true);
+        return true;
+    }
+    
+    public int getTaskCount() {
+        return taskCount;
+    }
+    
+    public Task[] getTasksSortedByDate(boolean ascending) {
+        return collectByDate(row -> true, ascending);
+    }
+    
+    public DuplicateReport checkDuplicates() {
+        // Insertion order keeps groups sorted by their first (lowest) task ID
+        LinkedHashMap<String, SortedIdList> byTitle = new LinkedHashMap<>();
+        HashMap<String, Integer> firstRow = new HashMap<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (!isLive(row)) {
+                continue;
+            }
+            String key = DuplicateReport.foldCase(heapAt(row).get(titles[row]));
+            SortedIdList ids = byTitle.get(key);
+            if (ids == null) {
+                ids = new SortedIdList();
+                byTitle.put(key, ids);
+                firstRow.put(key, row);
+            }
+            ids.add(this.ids[row]);
+        }
+        
+        // Keep only titles used by more than one task
+        ArrayList<DuplicateGroup> groups = new ArrayList<>();
+        for (String key : byTitle.keySet()) {
+            SortedIdList ids = byTitle.get(key);
+            if (ids.size() > 1) {
+                int[] taskIds = new int[ids.size()];
+                for (int i = 0; i < taskIds.length; i++) {
+                    taskIds[i] = ids.get(i);
+                }
+                int row = firstRow.get(key);
+                groups.add(new DuplicateGroup(heapAt(row).get(titles[row]), taskIds));
+            }
+        }
+        return new DuplicateReport(groups.toArray(new DuplicateGroup[0]));
+    }
+    
+    public Task[] getTasksDueBetween(LocalDate from, LocalDate to, String assignee, TaskStatus status) throws TaskException {
+        if (from == null || to == null) {
+            throw new TaskException("Dates cannot be null.");
+        }
+        if (from.isAfter(to)) {
+            throw new TaskException("Start date must not be after end date.");
+        }
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        int code = assigneeCode(assignee);
+        if (assignee != null && code < 0) {
+            return new Task[0];
+        }
+        return collectByDate(row -> epochDays[row] >= first && epochDays[row] <= last && matchesStatus(row, status)
+                                    && (assignee == null || assigneeIds[row] == code), true);
+    }
+    
+    public Task[] getTasksDueWithinDays(int days, String assignee, TaskStatus status) throws TaskException {
+        if (days < 0) {
+            throw new TaskException("Number of days cannot be negative.");
+        }
+        LocalDate today = LocalDate.now();
+        return getTasksDueBetween(today, today.plusDays(days), assignee, status);
+    }
+    
+    public Task[] getOverdueTasks(String assignee) {
+        long today = LocalDate.now().toEpochDay();
+        int code = assigneeCode(assignee);
+        if (assignee != null && code < 0) {
+            return new Task[0];
+        }
+        return collectByDate(row -> epochDays[row] < today && !getBit(completed, row)
+                                    && (assignee == null || assigneeIds[row] == code), true);
+    }
+    
+    public TaskPage getAllTasksPage(int afterTaskId, int pageSize) {
+        return page(row -> true, afterTaskId, pageSize);
+    }
+    
+    public TaskPage searchTasksPage(String keyword, int afterTaskId, int pageSize) {
+        byte[] foldedKeyword = SearchText.keyword(keyword);
+        return page(row -> matchesKeyword(row, foldedKeyword), afterTaskId, pageSize);
+    }
+    
+    public TaskPage getTasksByAssigneePage(String username, int afterTaskId, int pageSize) {
+        int code = assigneeCode(username);
+        return code < 0 ? emptyPage(afterTaskId, pageSize) : page(row -> assigneeIds[row] == code, afterTaskId, pageSize);
+    }
+    
+    public TaskPage getCompletedTasksPage(String username, int afterTaskId, int pageSize) {
+        int code = assigneeCode(username);
+        return code < 0 ? emptyPage(afterTaskId, pageSize) : page(row -> assigneeIds[row] == code && getBit(completed, row), afterTaskId, pageSize);
+    }
+    
+    public TaskPage getIncompleteTasksPage(String username, int afterTaskId, int pageSize) {
+        int code = assigneeCode(username);
+        return code < 0 ? emptyPage(afterTaskId, pageSize) : page(row -> assigneeIds[row] == code && !getBit(completed, row), afterTaskId, pageSize);
+    }
+}
+
+// PERSISTENCE
+
+/**
+ * When the write-ahead log forces appended records to disk
+ */
+enum FsyncPolicy {
+    EVERY_WRITE,  // fsync before each write returns - nothing acknowledged is ever lost
+    GROUP_COMMIT, // Concurrent writes share one fsync (GroupCommitJournal), each still waits until it is on disk
+    INTERVAL      // fsync from a background thread every few milliseconds
+}
+
+/**
+ * Append-only log of store changes
+ * Record layout: [int length][int crc32][long sequence][byte type][payload]
+ * length counts the bytes after the crc, and the crc covers the same bytes
+ * A torn or corrupt record marks the end of the log, replay cuts it off
+ */
+class WriteAheadLog implements Closeable {
+    static final long GROUP_COMMIT_WINDOW_MICROS = 0; // Extra wait for more records per fsync with GROUP_COMMIT
+    static final long SYNC_INTERVAL_MILLIS = 50;      // Time between fsyncs with INTERVAL
+    private static final int HEADER_SIZE = 8;         // length + crc
+    private static final int BODY_PREFIX = 9;         // sequence + type
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    
+    /**
+     * Writes one record's payload
+     */
+    interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    /**
+     * Receives each valid record during replay, in log order
+     */
+    interface RecordHandler {
+        void apply(long sequence, byte type, DataInputStream payload) throws IOException;
+    }
+    
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final GroupCommitJournal journal;     // Flusher thread for GROUP_COMMIT, null otherwise
+    private final ScheduledExecutorService syncer; // Background fsync thread, INTERVAL only
+    private final CRC32 crc = new CRC32();
+    private long lastSequence;      // Sequence number of the newest record
+    private int recordCount;        // Records currently in the file
+    private long syncCount;         // fsyncs done by append (EVERY_WRITE)
+    private volatile boolean dirty; // Something was appended since the last fsync (INTERVAL)
+    
+    /**
+     * Open (or create) a log file with the default batch window and interval
+     */
+    WriteAheadLog(Path file, FsyncPolicy policy) throws IOException {
+        this(file, policy, GROUP_COMMIT_WINDOW_MICROS, SYNC_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * Open (or create) a log file
+     * batchWindowMicros is only used by GROUP_COMMIT, intervalMillis only by INTERVAL
+     */
+    WriteAheadLog(Path file, FsyncPolicy policy, long batchWindowMicros, long intervalMillis) throws IOException {
+        if (batchWindowMicros < 0 || intervalMillis < 1) {
+            throw new IllegalArgumentException("Batch window cannot be negative and sync interval must be positive.");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.policy = policy;
+        // The journal only writes once records are submitted, so replay() can still run first
+        this.journal = policy == FsyncPolicy.GROUP_COMMIT ? new GroupCommitJournal(channel, batchWindowMicros) : null;
+        if (policy == FsyncPolicy.INTERVAL) {
+            syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncIfDirty, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+    
+    /**
+     * Read every valid record from the start of the file
+     * Everything after the first torn or corrupt record is truncated,
+     * so new records always follow valid ones
+     * Returns the number of records replayed
+     */
+    synchronized int replay(RecordHandler handler) throws IOException {
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        long validEnd = 0;
+        int count = 0;
+        byte[] body = new byte[256];
+        while (true) {
+            int length;
+            int expectedCrc;
+            try {
+                length = in.readInt();
+                expectedCrc = in.readInt();
+                if (length < BODY_PREFIX || length > MAX_RECORD_SIZE) {
+                    break; // Garbage length, the header itself was torn
+                }
+                if (body.length < length) {
+                    body = new byte[length];
+                }
+                in.readFully(body, 0, length);
+            } catch (EOFException e) {
+                break; // Clean end of file, or a record cut off mid-write
+            }
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(body, 0, length));
+            long sequence = record.readLong();
+            byte type = record.readByte();
+            handler.apply(sequence, type, record);
+            lastSequence = Math.max(lastSequence, sequence);
+            validEnd += HEADER_SIZE + length;
+            count++;
+        }
+        
+        // Drop the torn tail (if any) and continue writing after the last good record
+        if (channel.size() > validEnd) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+        recordCount = count;
+        return count;
+    }
+    
+    /**
+     * Continue numbering after a snapshot's sequence number
+     * (the log may be empty or older than the snapshot)
+     */
+    synchronized void startAfter(long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+    
+    /**
+     * Append one record and apply the fsync policy
+     * The future completes with the record's sequence number once the record is durable:
+     * already on return for EVERY_WRITE, when its batch is fsynced for GROUP_COMMIT,
+     * and right away for INTERVAL (which only promises the next background fsync)
+     */
+    synchronized CompletableFuture<Long> append(byte type, RecordWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // Length and crc are filled in below
+        out.writeInt(0);
+        out.writeLong(lastSequence + 1);
+        out.writeByte(type);
+        writer.write(out);
+        out.flush();
+        
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int length = record.capacity() - HEADER_SIZE;
+        crc.reset();
+        crc.update(record.array(), HEADER_SIZE, length);
+        record.putInt(0, length);
+        record.putInt(4, (int) crc.getValue());
+        lastSequence++;
+        recordCount++;
+        
+        // Group commit: the flusher thread writes it, in the same order as the sequence numbers
+        if (journal != null) {
+            return journal.submit(record, lastSequence);
+        }
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (policy == FsyncPolicy.EVERY_WRITE) {
+            channel.force(false);
+            syncCount++;
+        } else {
+            dirty = true;
+        }
+        return CompletableFuture.completedFuture(lastSequence);
+    }
+    
+    /**
+     * Force everything appended so far to disk
+     */
+    synchronized void sync() throws IOException {
+        if (journal != null) {
+            await(journal.flush());
+            return;
+        }
+        dirty = false;
+        channel.force(false);
+    }
+    
+    /**
+     * Wait for a future from append(), turning failures back into IOExceptions
+     */
+    static long await(CompletableFuture<Long> durable) throws IOException {
+        try {
+            return durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the log.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+    
+    /**
+     * Background fsync for INTERVAL, runs outside the lock so appends don't wait for the disk
+     */
+    private void syncIfDirty() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            dirty = true; // Try again next tick
+        }
+    }
+    
+    /**
+     * Throw away every record, once they are all covered by a snapshot
+     * Sequence numbers keep counting up from where they were
+     */
+    synchronized void reset() throws IOException {
+        if (journal != null) {
+            await(journal.flush()); // The flusher must be idle before the file is cut
+        }
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        recordCount = 0;
+        dirty = false;
+    }
+    
+    synchronized long getLastSequence() {
+        return lastSequence;
+    }
+    
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+    
+    /**
+     * fsyncs done for appended records so far
+     */
+    synchronized long getSyncCount() {
+        return journal != null ? journal.getBatchCount() : syncCount;
+    }
+    
+    /**
+     * Stop the background syncer, fsync and close the file
+     */
+    public synchronized void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        if (channel.isOpen()) {
+            if (journal != null) {
+                journal.close(); // Writes and fsyncs whatever is still queued
+            } else {
+                sync();
+            }
+            channel.close();
+        }
+    }
+    
+    /**
+     * Strings are stored as [int byte count][UTF-8 bytes], null as a count of -1
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_RECORD_SIZE) {
+            throw new IOException("Bad string length " + length + ".");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+/**
+ * Journal writer that lets many threads share each fsync (group commit)
+ * Writers enqueue records and get a future back. One flusher thread takes everything
+ * queued (waiting up to the batch window for more), writes it with one gathering
+ * write, fsyncs once and then completes all the futures in the batch.
+ * Records are written in the order they were submitted.
+ */
+class GroupCommitJournal implements Closeable {
+    private static final int MAX_BATCH = 4096; // Records per write+fsync at most
+    
+    /**
+     * One queued record (a null record is a flush marker)
+     */
+    private static final class Entry {
+        final ByteBuffer record;
+        final long sequence;
+        final CompletableFuture<Long> durable = new CompletableFuture<>();
+        
+        Entry(ByteBuffer record, long sequence) {
+            this.record = record;
+            this.sequence = sequence;
+        }
+    }
+    
+    private static final Entry STOP = new Entry(null, -1);
+    
+    private final FileChannel channel;
+    private final long batchWindowNanos;
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile IOException failure; // First write error - the journal refuses records after it
+    private volatile boolean closed;
+    private long batchCount;  // Written by the flusher thread only
+    private long recordCount;
+    
+    /**
+     * Start a journal writing at the channel's current position
+     * batchWindowMicros = 0 batches only what queued up during the previous fsync
+     */
+    GroupCommitJournal(FileChannel channel, long batchWindowMicros) {
+        if (batchWindowMicros < 0) {
+            throw new IllegalArgumentException("Batch window cannot be negative.");
+        }
+        this.channel = channel;
+        this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(batchWindowMicros);
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    /**
+     * Queue a record; the future completes with its sequence number once it is on disk
+     */
+    CompletableFuture<Long> submit(ByteBuffer record, long sequence) {
+        return enqueue(new Entry(record, sequence));
+    }
+    
+    /**
+     * The future completes once everything submitted before it is on disk
+     */
+    CompletableFuture<Long> flush() {
+        return enqueue(new Entry(null, -1));
+    }
+    
+    private CompletableFuture<Long> enqueue(Entry entry) {
+        if (closed) {
+            entry.durable.completeExceptionally(new IOException("Journal is closed."));
+        } else if (failure != null) {
+            entry.durable.completeExceptionally(failure);
+        } else {
+            queue.add(entry);
+        }
+        return entry.durable;
+    }
+    
+    /**
+     * Flusher thread: one batch per iteration
+     */
+    private void flushLoop() {
+        ArrayList<Entry> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            batch.clear();
+            try {
+                batch.add(queue.take());
+                if (batchWindowNanos > 0) {
+                    // Give other writers a moment to join this fsync
+                    long deadline = System.nanoTime() + batchWindowNanos;
+                    long remaining = batchWindowNanos;
+                    while (batch.size() < MAX_BATCH && remaining > 0) {
+                        Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        remaining = deadline - System.nanoTime();
+                    }
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+            } catch (InterruptedException e) {
+                // Only close() stops the flusher, keep going
+            }
+            if (batch.remove(STOP)) {
+                stopping = true;
+                queue.drainTo(batch); // Nothing can be added after close(), write the rest
+            }
+            writeBatch(batch);
+        }
+    }
+    
+    /**
+     * Write a batch with one gathering write and one fsync, then complete its futures
+     */
+    private void writeBatch(ArrayList<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        IOException error = failure;
+        if (error == null) {
+            try {
+                ArrayList<ByteBuffer> buffers = new ArrayList<>(batch.size());
+                long bytes = 0;
+                for (Entry entry : batch) {
+                    if (entry.record != null) {
+                        buffers.add(entry.record);
+                        bytes += entry.record.remaining();
+                    }
+                }
+                ByteBuffer[] records = buffers.toArray(new ByteBuffer[0]);
+                while (bytes > 0) {
+                    bytes -= channel.write(records);
+                }
+                channel.force(false);
+                batchCount++;
+                recordCount += records.length;
+            } catch (IOException e) {
+                failure = e; // A partly written batch would hide every later record from replay
+                error = e;
+            }
+        }
+        for (Entry entry : batch) {
+            if (error != null) {
+                entry.durable.completeExceptionally(error);
+            } else {
+                entry.durable.complete(entry.sequence);
+            }
+        }
+    }
+    
+    /**
+     * fsyncs done so far (read after close() or from tests only)
+     */
+    long getBatchCount() {
+        return batchCount;
+    }
+    
+    long getRecordCount() {
+        return recordCount;
+    }
+    
+    /**
+     * Write everything still queued, then stop the flusher thread
+     * The channel itself stays open
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(STOP);
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+/**
+ * A whole-store snapshot on disk
+ * Layout: [int magic][long sequence][int body length][body][int crc32 of body]
+ * sequence is the newest log record the snapshot already contains,
+ * so replay skips log records up to and including it
+ */
+class SnapshotFile {
+    private static final int MAGIC = 0x544F444F; // "TODO"
+    private static final int HEADER_SIZE = 16;
+    
+    private final long sequence;
+    private final byte[] body;
+    
+    private SnapshotFile(long sequence, byte[] body) {
+        this.sequence = sequence;
+        this.body = body;
+    }
+    
+    /**
+     * Write a snapshot to a temp file, fsync it, then rename it over the old one
+     * A crash at any point leaves either the old or the new snapshot, never half of one
+     */
+    static void write(Path file, long sequence, byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + body.length + 4);
+        buffer.putInt(MAGIC).putLong(sequence).putInt(body.length).put(body).putInt((int) crc.getValue());
+        buffer.flip();
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        // Make the rename itself durable (not possible on every platform)
+        try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Best effort only
+        }
+    }
+    
+    /**
+     * Read and verify a snapshot, or return null if none has been written yet
+     * A damaged snapshot is an error, it is never silently ignored
+     */
+    static SnapshotFile read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE + 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file: " + file);
+        }
+        long sequence = buffer.getLong();
+        int length = buffer.getInt();
+        if (length != data.length - HEADER_SIZE - 4) {
+            throw new IOException("Snapshot file is truncated: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, HEADER_SIZE, length);
+        if (buffer.getInt(HEADER_SIZE + length) != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+        return new SnapshotFile(sequence, Arrays.copyOfRange(data, HEADER_SIZE, HEADER_SIZE + length));
+    }
+    
+    long getSequence() {
+        return sequence;
+    }
+    
+    DataInputStream open() {
+        return new DataInputStream(new ByteArrayInputStream(body));
+    }
+}
+
+/**
+ * UserDAO that keeps its users across restarts
+ * Write-ahead: a registration is validated, appended to users.wal and only then
+ * applied in memory. The log is folded into users.snapshot every snapshotEvery
+ * records and on close. Passwords are saved as salted hashes (see PasswordHash), never
+ * as plain text; files from older versions that still hold plain text passwords are
+ * hashed and rewritten when the store opens.
+ */
+class DurableUserDAO implements UserDAO, Closeable {
+    static final byte USER_REGISTERED = 1;        // Plain text password - only read, from older files
+    static final byte USER_REGISTERED_HASHED = 2; // Password hash
+    static final int DEFAULT_SNAPSHOT_EVERY = 10_000;
+    private static final int SNAPSHOT_HASHED = -1; // First int of a snapshot with hashes (older ones start with the count)
+    
+    private final UserDAOImpl store = new UserDAOImpl();
+    private final Path snapshotFile;
+    private final int snapshotEvery;
+    private final int hashIterations;
+    private final WriteAheadLog log;
+    private boolean plainTextLoaded; // Set while opening if a plain text password was read
+    
+    public DurableUserDAO(Path directory, FsyncPolicy policy) throws IOException {
+        this(directory, policy, DEFAULT_SNAPSHOT_EVERY);
+    }
+    
+    public DurableUserDAO(Path directory, FsyncPolicy policy, int snapshotEvery) throws IOException {
+        this(directory, policy, snapshotEvery, PasswordHash.DEFAULT_ITERATIONS);
+    }
+    
+    /**
+     * Open the store in directory, loading the snapshot and replaying the log
+     * hashIterations is the PBKDF2 cost of new password hashes
+     */
+    public DurableUserDAO(Path directory, FsyncPolicy policy, int snapshotEvery, int hashIterations) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve("users.snapshot");
+        this.snapshotEvery = snapshotEvery;
+        this.hashIterations = hashIterations;
+        long snapshotSequence = loadSnapshot();
+        this.log = new WriteAheadLog(directory.resolve("users.wal"), policy);
+        try {
+            log.replay((sequence, type, payload) -> {
+                if (sequence <= snapshotSequence) {
+                    return; // Already in the snapshot
+                }
+                if (type != USER_REGISTERED && type != USER_REGISTERED_HASHED) {
+                    throw new IOException("Unknown user log record type " + type + ".");
+                }
+                restoreUser(payload, type == USER_REGISTERED_HASHED);
+            });
+            log.startAfter(snapshotSequence);
+            if (plainTextLoaded) {
+                snapshot(); // Replace the old files, so no plain text password stays on disk
+            }
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+    
+    public boolean registerUser(String username, String password, String userType) throws UserException {
+        store.checkNewUser(username, password, userType);
+        String name = username.trim();
+        UserRole role = UserRole.fromName(userType);
+        String passwordHash = PasswordHash.hash(password, hashIterations);
+        try {
+            WriteAheadLog.await(log.append(USER_REGISTERED_HASHED, out -> writeUser(out, name, passwordHash, role)));
+        } catch (IOException e) {
+            throw new UserException("Could not save user: " + e.getMessage());
+        }
+        store.addUser(name, null, role).setPasswordHash(passwordHash);
+        if (log.getRecordCount() >= snapshotEvery) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new UserException("Could not save snapshot: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+    
+    public User login(String username, String password) throws UserException {
+        return store.login(username, password);
+    }
+    
+    public boolean userExists(String username) {
+        return store.userExists(username);
+    }
+    
+    public User findUser(String username) {
+        return store.findUser(username);
+    }
+    
+    public User[] getAllUsers() {
+        return store.getAllUsers();
+    }
+    
+    public int getUserCount() {
+        return store.getUserCount();
+    }
+    
+    /**
+     * Write every user to a new snapshot and empty the log
+     */
+    public void snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        User[] users = store.getAllUsers();
+        out.writeInt(SNAPSHOT_HASHED);
+        out.writeInt(users.length);
+        for (User user : users) {
+            writeUser(out, user.getUsername(), user.getPasswordHash(), user.getRole());
+        }
+        out.flush();
+        SnapshotFile.write(snapshotFile, log.getLastSequence(), bytes.toByteArray());
+        log.reset();
+    }
+    
+    /**
+     * Snapshot, then close the log
+     */
+    public void close() throws IOException {
+        try {
+            snapshot();
+        } finally {
+            log.close();
+        }
+    }
+    
+    private long loadSnapshot() throws IOException {
+        SnapshotFile snapshot = SnapshotFile.read(snapshotFile);
+        if (snapshot == null) {
+            return 0;
+        }
+        DataInputStream in = snapshot.open();
+        int count = in.readInt();
+        boolean hashed = count == SNAPSHOT_HASHED;
+        if (hashed) {
+            count = in.readInt();
+        }
+        for (int i = 0; i < count; i++) {
+            restoreUser(in, hashed);
+        }
+        return snapshot.getSequence();
+    }
+    
+    /**
+     * Read one saved user - hashed says whether the record holds a hash or, from an
+     * older file, the plain text password (which is hashed now)
+     */
+    private void restoreUser(DataInputStream in, boolean hashed) throws IOException {
+        String username = WriteAheadLog.readString(in);
+        String secret = WriteAheadLog.readString(in);
+        String userType = WriteAheadLog.readString(in);
+        if (store.userExists(username)) {
+            return;
+        }
+        UserRole role = UserRole.fromName(userType);
+        if (username == null || username.trim().isEmpty() || secret == null || role == null) {
+            throw new IOException("Bad saved user " + username + ".");
+        }
+        String passwordHash;
+        if (hashed) {
+            try {
+                PasswordHash.parse(secret);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Bad saved password hash for user " + username + ".");
+            }
+            passwordHash = secret;
+        } else {
+            passwordHash = PasswordHash.hash(secret, hashIterations);
+            plainTextLoaded = true;
+        }
+        store.addUser(username.trim(), null, role).setPasswordHash(passwordHash);
+    }
+    
+    private static void writeUser(DataOutputStream out, String username, String passwordHash, UserRole role) throws IOException {
+        WriteAheadLog.writeString(out, username);
+        WriteAheadLog.writeString(out, passwordHash);
+        WriteAheadLog.writeString(out, role.getName());
+    }
+}
+
+/**
+ * TaskDAO that keeps its tasks across restarts
+ * Write-ahead: every change is validated, appended to tasks.wal and only then applied
+ * in memory, so a failed append changes nothing. A failed fsync is reported to the
+ * writer, but by then the change is applied. The log is folded into tasks.snapshot
+ * every snapshotEvery records and on close
+ * Like TaskDAOImpl it is not thread-safe, wrap it in ConcurrentTaskDAO
+ * (which also waits for group commits outside its lock, see DeferredDurability)
+ */
+class DurableTaskDAO implements TaskDAO, DeferredDurability, OptimisticLookups, Closeable {
+    static final byte TASK_ADDED = 1;
+    static final byte TASK_UPDATED = 2;
+    static final byte TASK_DELETED = 3;
+    static final byte TASK_COMPLETED = 4;
+    static final int DEFAULT_SNAPSHOT_EVERY = 10_000;
+    
+    private final TaskDAOImpl store;
+    private final Path snapshotFile;
+    private final int snapshotEvery;
+    private final WriteAheadLog log;
+    private int snapshotAt; // Log length that triggers the next periodic snapshot
+    private final ThreadLocal<CompletableFuture<Long>> pendingWrite = new ThreadLocal<>(); // Deferred write per thread
+    private volatile boolean deferDurability;
+    
+    public DurableTaskDAO(Path directory, FsyncPolicy policy) throws IOException {
+        this(directory, policy, DEFAULT_SNAPSHOT_EVERY);
+    }
+    
+    /**
+     * Open the store in directory, loading the snapshot and replaying the log
+     */
+    public DurableTaskDAO(Path directory, FsyncPolicy policy, int snapshotEvery) throws IOException {
+        this(directory, policy, snapshotEvery, new TaskDAOImpl());
+    }
+    
+    /**
+     * Same, loading into the given (empty) store - e.g. one with an off-heap text arena
+     */
+    public DurableTaskDAO(Path directory, FsyncPolicy policy, int snapshotEvery, TaskDAOImpl store) throws IOException {
+        if (store.getTaskCount() != 0) {
+            throw new IllegalArgumentException("The store must be empty.");
+        }
+        Files.createDirectories(directory);
+        this.store = store;
+        this.snapshotFile = directory.resolve("tasks.snapshot");
+        this.snapshotEvery = snapshotEvery;
+        this.snapshotAt = snapshotEvery;
+        long snapshotSequence = loadSnapshot();
+        this.log = new WriteAheadLog(directory.resolve("tasks.wal"), policy);
+        try {
+            log.replay((sequence, type, payload) -> {
+                if (sequence > snapshotSequence) {
+                    applyRecord(type, payload);
+                }
+            });
+            log.startAfter(snapshotSequence);
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+    
+    // Writes validate, log the resulting task state, then apply it in memory
+    
+    public boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        TaskDAOImpl.checkAdd(taskTitle, taskText, completionDate);
+        Task task = new Task(store.getNextId(), taskTitle, taskText, assignedTo, completionDate);
+        CompletableFuture<Long> durable = logChange(TASK_ADDED, out -> writeTask(out, task));
+        store.createTask(taskTitle, taskText, assignedTo, completionDate);
+        return applied(durable);
+    }
+    
+    public boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        store.checkUpdate(taskId, taskTitle, taskText, completionDate);
+        Task task = new Task(taskId, taskTitle, taskText, assignedTo, completionDate);
+        task.setCompleted(store.getTaskById(taskId).isCompleted());
+        CompletableFuture<Long> durable = logChange(TASK_UPDATED, out -> writeTask(out, task));
+        store.updateTask(taskId, taskTitle, taskText, assignedTo, completionDate);
+        return applied(durable);
+    }
+    
+    public boolean deleteTask(int taskId) throws TaskException {
+        store.checkExists(taskId);
+        CompletableFuture<Long> durable = logChange(TASK_DELETED, out -> out.writeInt(taskId));
+        store.deleteTask(taskId);
+        return applied(durable);
+    }
+    
+    public boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException {
+        store.checkCompletable(taskId, username);
+        Task current = store.getTaskById(taskId);
+        Task task = new Task(taskId, current.getTaskTitle(), current.getTaskText(), current.getAssignedTo(), current.getCompletionDate());
+        task.setCompleted(true);
+        CompletableFuture<Long> durable = logChange(TASK_COMPLETED, out -> writeTask(out, task));
+        store.markTaskAsCompleted(taskId, username);
+        return applied(durable);
+    }
+    
+    public Task[] getAllTasks() {
+        return store.getAllTasks();
+    }
+    
+    public Task getTaskById(int taskId) throws TaskException {
+        return store.getTaskById(taskId);
+    }
+    
+    public boolean allowsOptimisticLookups() {
+        return store.allowsOptimisticLookups();
+    }
+    
+    public Task[] searchTasks(String keyword) {
+        return store.searchTasks(keyword);
+    }
+    
+    public Task[] getTasksByAssignee(String username) {
+        return store.getTasksByAssignee(username);
+    }
+    
+    public Task[] getCompletedTasks(String username) {
+        return store.getCompletedTasks(username);
+    }
+    
+    public Task[] getIncompleteTasks(String username) {
+        return store.getIncompleteTasks(username);
+    }
+    
+    public int getTaskCount() {
+        return store.getTaskCount();
+    }
+    
+    public Task[] getTasksSortedByDate(boolean ascending) {
+        return store.getTasksSortedByDate(ascending);
+    }
+    
+    public DuplicateReport checkDuplicates() {
+        return store.checkDuplicates();
+    }
+    
+    public Task[] getTasksDueBetween(LocalDate from, LocalDate to, String assignee, TaskStatus status) throws TaskException {
+        return store.getTasksDueBetween(from, to, assignee, status);
+    }
+    
+    public Task[] getTasksDueWithinDays(int days, String assignee, TaskStatus status) throws TaskException {
+        return store.getTasksDueWithinDays(days, assignee, status);
+    }
+    
+    public Task[] getOverdueTasks(String assignee) {
+        return store.getOverdueTasks(assignee);
+    }
+    
+    public TaskPage getAllTasksPage(int afterTaskId, int pageSize) {
+        return store.getAllTasksPage(afterTaskId, pageSize);
+    }
+    
+    public TaskPage searchTasksPage(String keyword, int afterTaskId, int pageSize) {
+        return store.searchTasksPage(keyword, afterTaskId, pageSize);
+    }
+    
+    public TaskPage getTasksByAssigneePage(String username, int afterTaskId, int pageSize) {
+        return store.getTasksByAssigneePage(username, afterTaskId, pageSize);
+    }
+    
+    public TaskPage getCompletedTasksPage(String username, int afterTaskId, int pageSize) {
+        return store.getCompletedTasksPage(username, afterTaskId, pageSize);
+    }
+    
+    public TaskPage getIncompleteTasksPage(String username, int afterTaskId, int pageSize) {
+        return store.getIncompleteTasksPage(username, afterTaskId, pageSize);
+    }
+    
+    /**
+     * Write every task to a new snapshot and empty the log
+     */
+    public void snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Task[] all = store.getAllTasks();
+        out.writeInt(store.getNextId());
+        out.writeInt(all.length);
+        for (Task task : all) {
+            writeTask(out, task);
+        }
+        out.flush();
+        SnapshotFile.write(snapshotFile, log.getLastSequence(), bytes.toByteArray());
+        log.reset();
+        snapshotAt = snapshotEvery;
+    }
+    
+    /**
+     * Snapshot, then close the log
+     */
+    public void close() throws IOException {
+        try {
+            snapshot();
+        } finally {
+            log.close();
+        }
+    }
+    
+    public void deferDurability() {
+        deferDurability = true;
+    }
+    
+    public void awaitDurable() throws TaskException {
+        CompletableFuture<Long> pending = pendingWrite.get();
+        if (pending != null) {
+            pendingWrite.remove();
+            awaitDurable(pending);
+        }
+    }
+    
+    /**
+     * Append a change to the log, before it is applied
+     * If the append fails the change is rejected and memory is left as it was. The
+     * returned future can still fail when the record is fsynced - the change is
+     * applied in memory by then, and the writer only gets the error
+     */
+    private CompletableFuture<Long> logChange(byte type, WriteAheadLog.RecordWriter writer) throws TaskException {
+        try {
+            return log.append(type, writer);
+        } catch (IOException e) {
+            throw new TaskException("Could not save change to disk: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Finish a change that is logged and applied: snapshot when the log gets long, then
+     * wait until the record is durable, unless the caller deferred that
+     * A failed snapshot doesn't fail the change - the log still holds it, and the
+     * snapshot is tried again after another snapshotEvery records
+     */
+    private boolean applied(CompletableFuture<Long> durable) throws TaskException {
+        if (log.getRecordCount() >= snapshotAt) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                snapshotAt = (int) Math.min(Integer.MAX_VALUE, (long) log.getRecordCount() + snapshotEvery);
+                System.out.println("Warning: could not snapshot tasks, keeping the log: " + e.getMessage());
+            }
+        }
+        if (deferDurability) {
+            pendingWrite.set(durable);
+        } else {
+            awaitDurable(durable);
+        }
+        return true;
+    }
+    
+    private static void awaitDurable(CompletableFuture<Long> durable) throws TaskException {
+        try {
+            WriteAheadLog.await(durable);
+        } catch (IOException e) {
+            throw new TaskException("Could not save change to disk: " + e.getMessage());
+        }
+    }
+    
+    private long loadSnapshot() throws IOException {
+        SnapshotFile snapshot = SnapshotFile.read(snapshotFile);
+        if (snapshot == null) {
+            return 0;
+        }
+        DataInputStream in = snapshot.open();
+        int nextId = in.readInt();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            restoreTask(in);
+        }
+        store.reserveIdsBelow(nextId);
+        return snapshot.getSequence();
+    }
+    
+    /**
+     * Replay one log record, records only hold final states so replaying twice is harmless
+     */
+    private void applyRecord(byte type, DataInputStream in) throws IOException {
+        if (type == TASK_ADDED || type == TASK_UPDATED || type == TASK_COMPLETED) {
+            restoreTask(in);
+        } else if (type == TASK_DELETED) {
+            int taskId = in.readInt();
+            try {
+                store.deleteTask(taskId);
+            } catch (TaskException e) {
+                // Already gone
+            }
+        } else {
+            throw new IOException("Unknown task log record type " + type + ".");
+        }
+    }
+    
+    private void restoreTask(DataInputStream in) throws IOException {
+        int taskId = in.readInt();
+        String taskTitle = WriteAheadLog.readString(in);
+        String taskText = WriteAheadLog.readString(in);
+        String assignedTo = WriteAheadLog.readString(in);
+        LocalDate completionDate = LocalDate.ofEpochDay(in.readLong());
+        boolean completed = in.readBoolean();
+        store.restoreTask(taskId, taskTitle, taskText, assignedTo, completionDate, completed);
+    }
+    
+    static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeInt(task.getTaskId());
+        WriteAheadLog.writeString(out, task.getTaskTitle());
+        WriteAheadLog.writeString(out, task.getTaskText());
+        WriteAheadLog.writeString(out, task.getAssignedTo());
+        out.writeLong(task.getCompletionDay());
+        out.writeBoolean(task.isCompleted());
+    }
+}
+
+/**
+ * Fixed-layout binary task file, read through a MappedByteBuffer
+ * Header (32 bytes): [int magic][int version][int record count][int next ID][long heap start][long heap size]
+ * Records (RECORD_SIZE bytes each, sorted by task ID):
+ *   [int taskId][int epochDay][int flags][int titleOffset][int titleLength]
+ *   [int textOffset][int textLength][int assigneeOffset][int assigneeLength]
+ * String heap: UTF-8 bytes, offsets are relative to the heap start, equal strings are stored once
+ * A length of -1 means null (an unassigned task)
+ * Opening only maps the file and checks the header, records are read when asked for
+ * Used by MappedTaskDAO, which only DaoBenchmark runs
+ */
+class MappedTaskFile {
+    static final int MAGIC = 0x544D4150; // "TMAP"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 36;
+    private static final int FLAG_COMPLETED = 1;
+    
+    private final ByteBuffer records; // Record area, mapped read-only
+    private final ByteBuffer heap;    // String heap, mapped read-only
+    private final int recordCount;
+    private final int nextId;
+    
+    private MappedTaskFile(ByteBuffer records, ByteBuffer heap, int recordCount, int nextId) {
+        this.records = records;
+        this.heap = heap;
+        this.recordCount = recordCount;
+        this.nextId = nextId;
+    }
+    
+    /**
+     * Write tasks (in ID order) to a new task file, via a temp file and a rename
+     */
+    static void write(Path file, Task[] tasks, int nextId) throws IOException {
+        ByteBuffer recordArea = ByteBuffer.allocate(Math.multiplyExact(tasks.length, RECORD_SIZE));
+        ByteArrayOutputStream heapBytes = new ByteArrayOutputStream();
+        HashMap<String, Integer> heapOffsets = new HashMap<>();
+        int lastId = 0;
+        for (Task task : tasks) {
+            if (task.getTaskId() <= lastId) {
+                throw new IllegalArgumentException("Tasks must be in increasing ID order.");
+            }
+            lastId = task.getTaskId();
+            recordArea.putInt(task.getTaskId());
+            recordArea.putInt(task.getCompletionDay());
+            recordArea.putInt(task.isCompleted() ? FLAG_COMPLETED : 0);
+            putString(recordArea, heapBytes, heapOffsets, task.getTaskTitle());
+            putString(recordArea, heapBytes, heapOffsets, task.getTaskText());
+            putString(recordArea, heapBytes, heapOffsets, task.getAssignedTo());
+        }
+        recordArea.flip();
+        
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(tasks.length).putInt(Math.max(nextId, lastId + 1));
+        header.putLong(HEADER_SIZE + (long) recordArea.limit()).putLong(heapBytes.size());
+        header.flip();
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer buffer : new ByteBuffer[] { header, recordArea, ByteBuffer.wrap(heapBytes.toByteArray()) }) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Write a string's heap offset and length, adding it to the heap the first time it is seen
+     */
+    private static void putString(ByteBuffer recordArea, ByteArrayOutputStream heapBytes, HashMap<String, Integer> heapOffsets, String value) throws IOException {
+        if (value == null) {
+            recordArea.putInt(0);
+            recordArea.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Integer offset = heapOffsets.get(value);
+        if (offset == null) {
+            if (heapBytes.size() > Integer.MAX_VALUE - bytes.length) {
+                throw new IOException("String heap is larger than 2 GB.");
+            }
+            offset = heapBytes.size();
+            heapBytes.write(bytes);
+            heapOffsets.put(value, offset);
+        }
+        recordArea.putInt(offset);
+        recordArea.putInt(bytes.length);
+    }
+    
+    /**
+     * Map a task file - O(1), no record is read here
+     */
+    static MappedTaskFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a task file: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a task file: " + file);
+            }
+            int recordCount = header.getInt();
+            int nextId = header.getInt();
+            long heapStart = header.getLong();
+            long heapSize = header.getLong();
+            if (recordCount < 0 || heapStart != HEADER_SIZE + (long) recordCount * RECORD_SIZE || heapSize < 0 || heapStart + heapSize != fileSize) {
+                throw new IOException("Task file is truncated or damaged: " + file);
+            }
+            
+            // The mappings stay valid after the channel is closed
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, heapStart - HEADER_SIZE);
+            ByteBuffer heap = channel.map(FileChannel.MapMode.READ_ONLY, heapStart, heapSize);
+            return new MappedTaskFile(records, heap, recordCount, nextId);
+        }
+    }
+    
+    int size() {
+        return recordCount;
+    }
+    
+    int getNextId() {
+        return nextId;
+    }
+    
+    int taskId(int record) {
+        return records.getInt(record * RECORD_SIZE);
+    }
+    
+    int epochDay(int record) {
+        return records.getInt(record * RECORD_SIZE + 4);
+    }
+    
+    boolean isCompleted(int record) {
+        return (records.getInt(record * RECORD_SIZE + 8) & FLAG_COMPLETED) != 0;
+    }
+    
+    String title(int record) {
+        return string(record * RECORD_SIZE + 12);
+    }
+    
+    String text(int record) {
+        return string(record * RECORD_SIZE + 20);
+    }
+    
+    String assignee(int record) {
+        return string(record * RECORD_SIZE + 28);
+    }
+    
+    /**
+     * Compare the assignee with a UTF-8 encoded username without decoding it
+     */
+    boolean assigneeEquals(int record, byte[] utf8) {
+        int offset = records.getInt(record * RECORD_SIZE + 28);
+        int length = records.getInt(record * RECORD_SIZE + 32);
+        if (length != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (heap.get(offset + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Decode a whole record into a new Task
+     */
+    Task decode(int record) {
+        Task task = new Task(taskId(record), title(record), text(record), assignee(record), LocalDate.ofEpochDay(epochDay(record)));
+        task.setCompleted(isCompleted(record));
+        return task;
+    }
+    
+    /**
+     * First record with a task ID greater than afterTaskId (binary search)
+     */
+    int indexAfter(int afterTaskId) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (taskId(mid) <= afterTaskId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Record holding a task ID, or -1
+     */
+    int indexOf(int taskId) {
+        int record = indexAfter(taskId - 1);
+        return record < recordCount && taskId(record) == taskId ? record : -1;
+    }
+    
+    private String string(int field) {
+        int length = records.getInt(field + 4);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heap.get(records.getInt(field), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+/**
+ * TaskDAO that works straight off a MappedTaskFile
+ * Startup only maps the file; a record becomes a Task object the first time it is
+ * returned or changed, and filters read the mapped ID, date, completion flag and
+ * assignee bytes without decoding. Changes are kept in memory until save() writes a new file.
+ * Lazy decoding happens inside reads, so it installs Task objects with compare-and-set
+ * and stays correct when ConcurrentTaskDAO lets several readers share the read lock.
+ * The app keeps its tasks in DurableTaskDAO unless started with -Dtodo.mappedTasks=true,
+ * which serves them from tasks.mapped instead and only saves changes on exit (close).
+ * DaoBenchmark (store "mapped") builds one to compare mapped startup and reads
+ */
+class MappedTaskDAO implements TaskDAO, Closeable {
+    private final Path path;                       // File that close() saves back to
+    private final MappedTaskFile file;
+    private final int mappedCount;                 // Records in the file
+    private final AtomicReferenceArray<Task> decoded; // Task for each record once decoded (null = not yet)
+    private final boolean[] deleted;               // Records deleted since the file was written
+    private final ArrayList<Task> added;           // Tasks added since then (IDs above every mapped ID)
+    private int taskCount;
+    private int nextId;
+    
+    /**
+     * Tests a task position without decoding it
+     * Positions 0 to mappedCount - 1 are file records, the rest index into added
+     */
+    private interface PositionFilter {
+        boolean test(int position);
+    }
+    
+    /**
+     * Map a task file written by MappedTaskFile.write or save()
+     */
+    public MappedTaskDAO(Path path) throws IOException {
+        this.path = path;
+        file = MappedTaskFile.open(path);
+        mappedCount = file.size();
+        decoded = new AtomicReferenceArray<>(mappedCount);
+        deleted = new boolean[mappedCount];
+        added = new ArrayList<>();
+        taskCount = mappedCount;
+        nextId = file.getNextId();
+    }
+    
+    /**
+     * Write every task (including unsaved changes) to a task file
+     * Records that were never touched are copied without being kept as Task objects
+     */
+    public void save(Path path) throws IOException {
+        Task[] all = new Task[taskCount];
+        int count = 0;
+        for (int p = 0; p < positionCount(); p++) {
+            if (isLive(p)) {
+                Task task = peek(p);
+                all[count] = task != null ? task : file.decode(p);
+                count++;
+            }
+        }
+        MappedTaskFile.write(path, all, nextId);
+    }
+    
+    /**
+     * Save every change back to the mapped file (replaced by a rename, the old
+     * mapping stays readable)
+     */
+    public void close() throws IOException {
+        save(path);
+    }
+    
+    // POSITION ACCESS - cached Task objects win over the mapped record, since they may have changed
+    
+    private int positionCount() {
+        return mappedCount + added.size();
+    }
+    
+    private boolean isLive(int p) {
+        return p >= mappedCount || !deleted[p];
+    }
+    
+    private int idAt(int p) {
+        return p < mappedCount ? file.taskId(p) : added.get(p - mappedCount).getTaskId();
+    }
+    
+    /**
+     * The Task object for a position if one exists, without decoding
+     */
+    private Task peek(int p) {
+        return p < mappedCount ? decoded.get(p) : added.get(p - mappedCount);
+    }
+    
+    /**
+     * The Task object for a position, decoding the record on first access
+     */
+    private Task taskAt(int p) {
+        Task task = peek(p);
+        if (task == null) {
+            // Another reader may decode the same record at the same time - first one in wins
+            decoded.compareAndSet(p, null, file.decode(p));
+            task = decoded.get(p);
+        }
+        return task;
+    }
+    
+    private boolean completedAt(int p) {
+        Task task = peek(p);
+        return task != null ? task.isCompleted() : file.isCompleted(p);
+    }
+    
+    private long epochDayAt(int p) {
+        Task task = peek(p);
+        return task != null ? task.getCompletionDay() : file.epochDay(p);
+    }
+    
+    private boolean assignedTo(int p, String username, byte[] utf8) {
+        Task task = peek(p);
+        return task != null ? username.equals(task.getAssignedTo()) : file.assigneeEquals(p, utf8);
+    }
+    
+    private String titleAt(int p) {
+        Task task = peek(p);
+        return task != null ? task.getTaskTitle() : file.title(p);
+    }
+    
+    /**
+     * Same matching rules as TaskDAOImpl.searchTasks (SearchText folding), strings are
+     * decoded but no Task is built
+     */
+    private boolean matchesKeyword(int p, byte[] foldedKeyword) {
+        Task task = peek(p);
+        if (task != null) {
+            return SearchText.fieldContains(task.getTaskTitle(), foldedKeyword) ||
+                   SearchText.fieldContains(task.getTaskText(), foldedKeyword) ||
+                   SearchText.fieldContains(task.getAssignedTo(), foldedKeyword);
+        }
+        return SearchText.fieldContains(file.title(p), foldedKeyword) ||
+               SearchText.fieldContains(file.text(p), foldedKeyword) ||
+               SearchText.fieldContains(file.assignee(p), foldedKeyword);
+    }
+    
+    /**
+     * Position of a live task, or throw if it doesn't exist
+     */
+    private int positionOf(int taskId) throws TaskException {
+        int p = file.indexOf(taskId);
+        if (p < 0) {
+            p = addedIndexAfter(taskId - 1);
+            p = p < added.size() && added.get(p).getTaskId() == taskId ? mappedCount + p : -1;
+        }
+        if (p < 0 || !isLive(p)) {
+            throw new TaskException("Task with ID " + taskId + " not found.");
+        }
+        return p;
+    }
+    
+    /**
+     * First position with a task ID greater than afterTaskId
+     */
+    private int firstPositionAfter(int afterTaskId) {
+        int p = file.indexAfter(afterTaskId);
+        return p < mappedCount ? p : mappedCount + addedIndexAfter(afterTaskId);
+    }
+    
+    private int addedIndexAfter(int afterTaskId) {
+        int low = 0;
+        int high = added.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (added.get(mid).getTaskId() <= afterTaskId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * All live tasks that pass a filter, in ID order
+     */
+    private Task[] collect(PositionFilter filter) {
+        ArrayList<Task> results = new ArrayList<>();
+        for (int p = 0; p < positionCount(); p++) {
+            if (isLive(p) && filter.test(p)) {
+                results.add(taskAt(p));
+            }
+        }
+        return results.toArray(new Task[0]);
+    }
+    
+    /**
+     * One keyset page of the live tasks that pass a filter
+     */
+    private TaskPage page(PositionFilter filter, int afterTaskId, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        ArrayList<Task> page = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        for (int p = firstPositionAfter(afterTaskId); p < positionCount(); p++) {
+            if (isLive(p) && filter.test(p)) {
+                if (page.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                page.add(taskAt(p));
+            }
+        }
+        return new TaskPage(page.toArray(new Task[0]), afterTaskId, hasMore);
+    }
+    
+    /**
+     * Live tasks that pass a filter, ordered by (date, task ID)
+     * Sorts packed (day, position) keys, so only the results get decoded
+     */
+    private Task[] collectByDate(PositionFilter filter, boolean ascending) {
+        long[] keys = new long[taskCount];
+        int count = 0;
+        for (int p = 0; p < positionCount(); p++) {
+            if (isLive(p) && filter.test(p)) {
+                long day = ascending ? epochDayAt(p) : -epochDayAt(p);
+                keys[count] = (day << 32) | p; // Positions are in ID order, so they break date ties
+                count++;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        Task[] results = new Task[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = taskAt((int) keys[i]);
+        }
+        return results;
+    }
+    
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    // TaskDAO OPERATIONS
+    
+    public boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        // Validate inputs (same rules as TaskDAOImpl)
+        TaskDAOImpl.checkAdd(taskTitle, taskText, completionDate);
+        
+        added.add(new Task(nextId, taskTitle, taskText, assignedTo, completionDate));
+        nextId++;
+        taskCount++;
+        return true;
+    }
+    
+    public Task[] getAllTasks() {
+        return collect(p -> true);
+    }
+    
+    public Task getTaskById(int taskId) throws TaskException {
+        return taskAt(positionOf(taskId));
+    }
+    
+    public boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        // Validate inputs
+        TaskDAOImpl.checkFields(taskTitle, taskText, completionDate);
+        
+        // Changes go to the Task object, which from now on overrides the mapped record
+        Task task = taskAt(positionOf(taskId));
+        task.setTaskTitle(taskTitle);
+        task.setTaskText(taskText);
+        task.setAssignedTo(assignedTo);
+        task.setCompletionDate(completionDate);
+        return true;
+    }
+    
+    public boolean deleteTask(int taskId) throws TaskException {
+        int p = positionOf(taskId);
+        if (p < mappedCount) {
+            deleted[p] = true;
+            decoded.set(p, null);
+        } else {
+            added.remove(p - mappedCount);
+        }
+        taskCount--;
+        return true;
+    }
+    
+    public Task[] searchTasks(String keyword) {
+        byte[] foldedKeyword = SearchText.keyword(keyword);
+        return collect(p -> matchesKeyword(p, foldedKeyword));
+    }
+    
+    public Task[] getTasksByAssignee(String username) {
+        if (username == null) {
+            return new Task[0];
+        }
+        byte[] name = utf8(username);
+        return collect(p -> assignedTo(p, username, name));
+    }
+    
+    public Task[] getCompletedTasks(String username) {
+        if (username == null) {
+            return new Task[0];
+        }
+        byte[] name = utf8(username);
+        return collect(p -> completedAt(p) && assignedTo(p, username, name));
+    }
+    
+    public Task[] getIncompleteTasks(String username) {
+        if (username == null) {
+            return new Task[0];
+        }
+        byte[] name = utf8(username);
+        return collect(p -> !completedAt(p) && assignedTo(p, username, name));
+    }
+    
+    public boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException {
+        Task task = taskAt(positionOf(taskId));
+        
+        // Ensure user can only mark their own tasks
+        if (!Objects.equals(task.getAssignedTo(), username)) {
+            throw new VisitorException("You can only mark tasks assigned to you as completed.");
+        }
+        
+        // Check if already completed
+        if (task.isCompleted()) {
+            throw new VisitorException("Task is already marked as completed.");
+        }
+        task.setCompleted(true);
+        return true;
+    }
+    
+    public int getTaskCount() {
+        return taskCount;
+    }
+    
+    public Task[] getTasksSortedByDate(boolean ascending) {
+        return collectByDate(p -> true, ascending);
+    }
+    
+    public DuplicateReport checkDuplicates() {
+        // Titles are decoded as strings, records don't become Task objects
+        LinkedHashMap<String, SortedIdList> byTitle = new LinkedHashMap<>();
+        for (int p = 0; p < positionCount(); p++) {
+            if (!isLive(p)) {
+                continue;
+            }
+            String key = DuplicateReport.foldCase(titleAt(p));
+            SortedIdList ids = byTitle.get(key);
+            if (ids == null) {
+                ids = new SortedIdList();
+                byTitle.put(key, ids);
+            }
+            ids.add(idAt(p));
+        }
+        
+        // Keep only titles used by more than one task
+        ArrayList<DuplicateGroup> groups = new ArrayList<>();
+        for (SortedIdList ids : byTitle.values()) {
+            if (ids.size() > 1) {
+                int[] taskIds = new int[ids.size()];
+                for (int i = 0; i < taskIds.length; i++) {
+                    taskIds[i] = ids.get(i);
+                }
+                int first = firstPositionAfter(taskIds[0] - 1);
+                groups.add(new DuplicateGroup(titleAt(first), taskIds));
+            }
+        }
+        return new DuplicateReport(groups.toArray(new DuplicateGroup[0]));
+    }
+    
+    public Task[] getTasksDueBetween(LocalDate from, LocalDate to, String assignee, TaskStatus status) throws TaskException {
+        if (from == null || to == null) {
+            throw new TaskException("Dates cannot be null.");
+        }
+        if (from.isAfter(to)) {
+            throw new TaskException("Start date must not be after end date.");
+        }
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        byte[] name = assignee == null ? null : utf8(assignee);
+        return collectByDate(p -> {
+            long day = epochDayAt(p);
+            return day >= first && day <= last && matchesStatus(p, status) && (assignee == null || assignedTo(p, assignee, name));
+        }, true);
+    }
+    
+    public Task[] getTasksDueWithinDays(int days, String assignee, TaskStatus status) throws TaskException {
+        if (days < 0) {
+            throw new TaskException("Number of days cannot be negative.");
+        }
+        LocalDate today = LocalDate.now();
+        return getTasksDueBetween(today, today.plusDays(days), assignee, status);
+    }
+    
+    public Task[] getOverdueTasks(String assignee) {
+        long today = LocalDate.now().toEpochDay();
+        byte[] name = assignee == null ? null : utf8(assignee);
+        return collectByDate(p -> !completedAt(p) && epochDayAt(p) < today && (assignee == null || assignedTo(p, assignee, name)), true);
+    }
+    
+    private boolean matchesStatus(int p, TaskStatus status) {
+        return status == TaskStatus.ALL || (status == TaskStatus.COMPLETED) == completedAt(p);
+    }
+    
+    public TaskPage getAllTasksPage(int afterTaskId, int pageSize) {
+        return page(p -> true, afterTaskId, pageSize);
+    }
+    
+    public TaskPage searchTasksPage(String keyword, int afterTaskId, int pageSize) {
+        byte[] foldedKeyword = SearchText.keyword(keyword);
+        return page(p -> matchesKeyword(p, foldedKeyword), afterTaskId, pageSize);
+    }
+    
+    public TaskPage getTasksByAssigneePage(String username, int afterTaskId, int pageSize) {
+        byte[] name = username == null ? null : utf8(username);
+        return page(p -> username != null && assignedTo(p, username, name), afterTaskId, pageSize);
+    }
+    
+    public TaskPage getCompletedTasksPage(String username, int afterTaskId, int pageSize) {
+        byte[] name = username == null ? null : utf8(username);
+        return page(p -> username != null && completedAt(p) && assignedTo(p, username, name), afterTaskId, pageSize);
+    }
+    
+    public TaskPage getIncompleteTasksPage(String username, int afterTaskId, int pageSize) {
+        byte[] name = username == null ? null : utf8(username);
+        return page(p -> username != null && !completedAt(p) && assignedTo(p, username, name), afterTaskId, pageSize);
+    }
+}
+
+/**
+ * Benchmark: per-write fsync vs group commit
+ * Usage: java JournalBenchmark [writes per thread] [directory]
+ * Each thread appends task records to a fresh log and waits until every record is
+ * durable; prints throughput, latency percentiles and fsync count per configuration.
+ * The last table runs the same comparison through ConcurrentTaskDAO(DurableTaskDAO).
+ */
+class JournalBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+    private static final long[] BATCH_WINDOWS_MICROS = {0, 100, 500, 2000};
+    
+    public static void main(String[] args) throws Exception {
+        int writesPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Path directory = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("journal-bench");
+        Files.createDirectories(directory);
+        System.out.println("Log appends, " + writesPerThread + " writes per thread, in " + directory);
+        printHeader();
+        for (int threads : THREAD_COUNTS) {
+            runLog(directory, "per-op fsync", FsyncPolicy.EVERY_WRITE, 0, threads, writesPerThread);
+            for (long window : BATCH_WINDOWS_MICROS) {
+                runLog(directory, "group commit " + window + "us", FsyncPolicy.GROUP_COMMIT, window, threads, writesPerThread);
+            }
+        }
+        
+        System.out.println("\nConcurrentTaskDAO(DurableTaskDAO).addTask");
+        printHeader();
+        for (int threads : THREAD_COUNTS) {
+            runDao(directory, "per-op fsync", FsyncPolicy.EVERY_WRITE, threads, writesPerThread);
+            runDao(directory, "group commit", FsyncPolicy.GROUP_COMMIT, threads, writesPerThread);
+        }
+    }
+    
+    /**
+     * One writer's work: a single durable write
+     */
+    private interface Write {
+        void run(int thread, int i) throws Exception;
+    }
+    
+    private static void runLog(Path directory, String mode, FsyncPolicy policy, long windowMicros, int threads, int writesPerThread) throws Exception {
+        Path file = directory.resolve("bench.wal");
+        Files.deleteIfExists(file);
+        Task sample = new Task(1, "Benchmark task", "Group commit benchmark record", "bench", LocalDate.now());
+        WriteAheadLog log = new WriteAheadLog(file, policy, windowMicros, WriteAheadLog.SYNC_INTERVAL_MILLIS);
+        long[] latencies = measure(threads, writesPerThread, (thread, i) ->
+            WriteAheadLog.await(log.append(DurableTaskDAO.TASK_ADDED, out -> DurableTaskDAO.writeTask(out, sample))));
+        log.close();
+        print(mode, threads, latencies, log.getSyncCount());
+    }
+    
+    private static void runDao(Path directory, String mode, FsyncPolicy policy, int threads, int writesPerThread) throws Exception {
+        Path storeDirectory = directory.resolve("bench-store");
+        Files.deleteIfExists(storeDirectory.resolve("tasks.wal"));
+        Files.deleteIfExists(storeDirectory.resolve("tasks.snapshot"));
+        DurableTaskDAO store = new DurableTaskDAO(storeDirectory, policy, Integer.MAX_VALUE);
+        TaskDAO dao = new ConcurrentTaskDAO(store);
+        LocalDate due = LocalDate.now().plusDays(1);
+        long[] latencies = measure(threads, writesPerThread, (thread, i) ->
+            dao.addTask("Task " + i, "Written by thread " + thread, "user" + thread, due));
+        print(mode, threads, latencies, -1);
+        store.close();
+    }
+    
+    /**
+     * Run writesPerThread writes on each thread and return every write's latency in nanoseconds
+     * The wall-clock time of the whole run is stored in the last element
+     */
+    private static long[] measure(int threads, int writesPerThread, Write write) throws Exception {
+        long[] latencies = new long[threads * writesPerThread + 1];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        Exception[] failure = new Exception[1];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < writesPerThread; i++) {
+                        long begin = System.nanoTime();
+                        write.run(thread, i);
+                        latencies[thread * writesPerThread + i] = System.nanoTime() - begin;
+                    }
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        latencies[latencies.length - 1] = System.nanoTime() - begin;
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return latencies;
+    }
+    
+    private static void printHeader() {
+        System.out.printf("%-22s %7s %12s %10s %10s %10s %8s%n", "mode", "threads", "writes/s", "p50 us", "p99 us", "max us", "fsyncs");
+    }
+    
+    private static void print(String mode, int threads, long[] latencies, long fsyncs) {
+        int writes = latencies.length - 1;
+        long elapsed = latencies[writes];
+        long[] sorted = Arrays.copyOf(latencies, writes);
+        Arrays.sort(sorted);
+        System.out.printf("%-22s %7d %12.0f %10.1f %10.1f %10.1f %8s%n", mode, threads,
+            writes * 1e9 / elapsed, percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3,
+            sorted[writes - 1] / 1e3, fsyncs < 0 ? "-" : String.valueOf(fsyncs));
+    }
+    
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
+
+// MONITORING
+
+/**
+ * Latency histogram with HDR-style log-linear buckets
+ * Values below 256 are counted exactly; above that every power of two is split into
+ * 128 buckets, so any recorded value is off by less than 1% (2 significant digits).
+ * Memory is fixed (about 36 KB) whatever the range. Not thread-safe: use one per
+ * thread and add() them together afterwards, or keep the counts elsewhere (see OperationStats).
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKETS = 256;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int HALF_BITS = 7;                        // log2(HALF)
+    static final long MAX_TRACKABLE = TimeUnit.HOURS.toNanos(1);   // Bigger values are counted as this
+    
+    static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE) + 1;
+    
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long max;
+    private double sum;
+    
+    void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_TRACKABLE));
+        counts[indexOf(clamped)]++;
+        totalCount++;
+        max = Math.max(max, clamped);
+        sum += clamped;
+    }
+    
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+    
+    /**
+     * Add counts kept elsewhere, indexed by bucketOf(), with their max and sum
+     */
+    void addBuckets(long[] bucketCounts, long bucketsMax, double bucketsSum) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += bucketCounts[i];
+            totalCount += bucketCounts[i];
+        }
+        max = Math.max(max, Math.min(bucketsMax, MAX_TRACKABLE));
+        sum += bucketsSum;
+    }
+    
+    /**
+     * Bucket that record() counts a value in
+     */
+    static int bucketOf(long value) {
+        return indexOf(Math.max(0, Math.min(value, MAX_TRACKABLE)));
+    }
+    
+    long getCount() {
+        return totalCount;
+    }
+    
+    long getMax() {
+        return max;
+    }
+    
+    double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+    
+    /**
+     * Smallest value that at least `percentile` percent of the recorded values are at or below
+     * (reported as the top of its bucket, like HdrHistogram's highest equivalent value)
+     */
+    long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= wanted) {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+    
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - HALF_BITS; // Keeps the top 8 bits
+        int top = (int) (value >>> shift);                              // In [HALF, SUB_BUCKETS)
+        return SUB_BUCKETS + (shift - 1) * HALF + (top - HALF);
+    }
+    
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long top = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((top + 1) << shift) - 1;
+    }
+}
+
+/**
+ * A DAO call that may throw the checked exception E
+ */
+interface DaoCall<T, E extends Exception> {
+    T run() throws E;
+}
+
+/**
+ * Call count, errors and latency of one DAO method
+ * Safe to record from any number of threads. Calls and errors are counted exactly;
+ * latency is timed for one call in sampleEvery, because reading the clock twice
+ * costs more than the cheapest lookups themselves.
+ * Calls and the sampling countdown are kept per thread, so recording a call that
+ * isn't timed writes no field another thread touches and needs no CAS.
+ */
+final class OperationStats {
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    
+    /**
+     * One thread's part of the stats, written only by that thread
+     */
+    private static final class ThreadShare {
+        final AtomicLong calls = new AtomicLong(); // Ordered store by the owner, read by getCalls()
+        int untilSample;                           // Calls left before this thread times one
+    }
+    
+    private final int sampleEvery;
+    private final Class<?>[] errorTypes;
+    private final ThreadLocal<ThreadShare> share = ThreadLocal.withInitial(this::newShare);
+    private final ConcurrentLinkedQueue<ThreadShare> shares = new ConcurrentLinkedQueue<>(); // Kept when a thread ends, its calls still count
+    private final AtomicLong callsAtReset = new AtomicLong();
+    private final LongAdder[] errors;      // One per error type, the last one counts anything else
+    private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final DoubleAdder totalNanos = new DoubleAdder();
+    
+    OperationStats(int sampleEvery, Class<?>[] errorTypes) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("sampleEvery must be at least 1");
+        }
+        this.sampleEvery = sampleEvery;
+        this.errorTypes = errorTypes;
+        this.errors = new LongAdder[errorTypes.length + 1];
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Count a call; returns the value to pass to finish()
+     */
+    long start() {
+        ThreadShare mine = share.get();
+        mine.calls.lazySet(mine.calls.get() + 1); // Only this thread writes it
+        if (--mine.untilSample > 0) {
+            return NOT_TIMED;
+        }
+        mine.untilSample = sampleEvery;
+        return System.nanoTime();
+    }
+    
+    void finish(long start) {
+        if (start != NOT_TIMED) {
+            long elapsed = System.nanoTime() - start;
+            buckets.incrementAndGet(LatencyHistogram.bucketOf(elapsed));
+            maxNanos.accumulate(elapsed);
+            totalNanos.add(elapsed);
+        }
+    }
+    
+    /**
+     * Run a call, recording it and its error, if any
+     * The lambda costs a few nanoseconds, so the cheapest DAO methods call
+     * start(), failed() and finish() themselves instead
+     */
+    <T, E extends Exception> T time(DaoCall<T, E> call) throws E {
+        long start = start();
+        try {
+            return call.run();
+        } catch (Exception e) {
+            failed(e);
+            throw e;
+        } finally {
+            finish(start);
+        }
+    }
+    
+    void failed(Throwable error) {
+        int type = 0;
+        while (type < errorTypes.length && !errorTypes[type].isInstance(error)) {
+            type++;
+        }
+        errors[type].increment();
+    }
+    
+    long getCalls() {
+        return sumCalls() - callsAtReset.get();
+    }
+    
+    /**
+     * Errors of errorTypes[type], or of any other type for type == errorTypes.length
+     */
+    long getErrors(int type) {
+        return errors[type].sum();
+    }
+    
+    /**
+     * Copy of the timed calls' latencies in nanoseconds
+     * Not atomic - calls finishing meanwhile may or may not be included
+     */
+    LatencyHistogram latencies() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.addBuckets(counts, maxNanos.get(), totalNanos.sum());
+        return histogram;
+    }
+    
+    void reset() {
+        callsAtReset.set(sumCalls()); // The owners keep writing their shares, so remember where zero is
+        for (LongAdder counter : errors) {
+            counter.reset();
+        }
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        maxNanos.reset();
+        totalNanos.reset();
+    }
+    
+    private long sumCalls() {
+        long sum = 0;
+        for (ThreadShare threadShare : shares) {
+            sum += threadShare.calls.get();
+        }
+        return sum;
+    }
+    
+    private ThreadShare newShare() {
+        ThreadShare threadShare = new ThreadShare();
+        shares.add(threadShare);
+        return threadShare;
+    }
+}
+
+/**
+ * JMX view of one instrumented DAO, registered as TodoManager:type=<type>
+ * For every method <op> there are read-only attributes <op>Calls, one <op><Error>s
+ * per error type (e.g. searchTasksTaskExceptions), <op>OtherErrors, and <op>MeanMicros,
+ * <op>P50Micros, <op>P99Micros, <op>P999Micros and <op>MaxMicros over the timed calls.
+ * The reset operation zeroes everything.
+ * A DynamicMBean because the attributes follow from the method list (and a
+ * standard MBean interface would have to be public).
+ */
+class DaoMetrics implements DynamicMBean {
+    static final String DOMAIN = "TodoManager";
+    static final int DEFAULT_SAMPLE_EVERY = 16;
+    
+    private final String type;
+    private final int sampleEvery;
+    private final Class<?>[] errorTypes;
+    private final ArrayList<OperationStats> operations = new ArrayList<>();
+    private final LinkedHashMap<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+    private final ArrayList<MBeanAttributeInfo> attributeInfo = new ArrayList<>();
+    
+    /**
+     * errorTypes = the checked exceptions the DAO's methods throw
+     */
+    DaoMetrics(String type, int sampleEvery, Class<?>... errorTypes) {
+        this.type = type;
+        this.sampleEvery = sampleEvery;
+        this.errorTypes = errorTypes;
+        attribute("SampleEvery", "int", "One call in this many is timed", () -> this.sampleEvery);
+    }
+    
+    /**
+     * Stats for the DAO method `name`, published with the other methods' attributes
+     */
+    OperationStats operation(String name) {
+        OperationStats stats = new OperationStats(sampleEvery, errorTypes);
+        operations.add(stats);
+        attribute(name + "Calls", "long", "Calls of " + name, stats::getCalls);
+        for (int i = 0; i <= errorTypes.length; i++) {
+            int errorType = i;
+            String error = i < errorTypes.length ? errorTypes[i].getSimpleName() + "s" : "OtherErrors";
+            attribute(name + error, "long", error + " thrown by " + name, () -> stats.getErrors(errorType));
+        }
+        attribute(name + "MeanMicros", "double", "Mean latency of " + name, () -> stats.latencies().getMean() / 1e3);
+        attribute(name + "P50Micros", "double", "Median latency of " + name, () -> stats.latencies().valueAtPercentile(50) / 1e3);
+        attribute(name + "P99Micros", "double", "99th percentile latency of " + name, () -> stats.latencies().valueAtPercentile(99) / 1e3);
+        attribute(name + "P999Micros", "double", "99.9th percentile latency of " + name, () -> stats.latencies().valueAtPercentile(99.9) / 1e3);
+        attribute(name + "MaxMicros", "double", "Longest timed call of " + name, () -> stats.latencies().getMax() / 1e3);
+        return stats;
+    }
+    
+    private void attribute(String name, String type, String description, Supplier<Object> value) {
+        attributes.put(name, value);
+        attributeInfo.add(new MBeanAttributeInfo(name, type, description, true, false, false));
+    }
+    
+    /**
+     * Publish on the platform MBean server (visible in JConsole / VisualVM)
+     */
+    ObjectName register() throws JMException {
+        ObjectName name = new ObjectName(DOMAIN, "type", type);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        return name;
+    }
+    
+    void reset() {
+        for (OperationStats stats : operations) {
+            stats.reset();
+        }
+    }
+    
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Supplier<Object> value = attributes.get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No attribute " + attribute + ".");
+        }
+        return value.get();
+    }
+    
+    public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Supplier<Object> value = attributes.get(name);
+            if (value != null) {
+                list.add(new Attribute(name, value.get()));
+            }
+        }
+        return list;
+    }
+    
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Attribute " + attribute.getName() + " is read-only.");
+    }
+    
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList(); // Everything is read-only
+    }
+    
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("reset") && (params == null || params.length == 0)) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+    
+    public MBeanInfo getMBeanInfo() {
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Zero all counters and latencies",
+            new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Call metrics of the " + type,
+            attributeInfo.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { reset }, null);
+    }
+}
+
+/**
+ * InstrumentedTaskDAO - decorator that records call metrics for another TaskDAO
+ * Thread-safe if the delegate is. Wrap it around ConcurrentTaskDAO to include lock waits
+ */
+class InstrumentedTaskDAO implements TaskDAO {
+    private final TaskDAO delegate;
+    private final DaoMetrics metrics;
+    private final OperationStats addTask;
+    private final OperationStats getAllTasks;
+    private final OperationStats getTaskById;
+    private final OperationStats updateTask;
+    private final OperationStats deleteTask;
+    private final OperationStats searchTasks;
+    private final OperationStats getTasksByAssignee;
+    private final OperationStats getCompletedTasks;
+    private final OperationStats getIncompleteTasks;
+    private final OperationStats markTaskAsCompleted;
+    private final OperationStats getTaskCount;
+    private final OperationStats getTasksSortedByDate;
+    private final OperationStats checkDuplicates;
+    private final OperationStats getTasksDueBetween;
+    private final OperationStats getTasksDueWithinDays;
+    private final OperationStats getOverdueTasks;
+    private final OperationStats getAllTasksPage;
+    private final OperationStats searchTasksPage;
+    private final OperationStats getTasksByAssigneePage;
+    private final OperationStats getCompletedTasksPage;
+    private final OperationStats getIncompleteTasksPage;
+    
+    public InstrumentedTaskDAO(TaskDAO delegate, int sampleEvery) {
+        this.delegate = delegate;
+        this.metrics = new DaoMetrics("TaskDAO", sampleEvery, TaskException.class, VisitorException.class);
+        addTask = metrics.operation("addTask");
+        getAllTasks = metrics.operation("getAllTasks");
+        getTaskById = metrics.operation("getTaskById");
+        updateTask = metrics.operation("updateTask");
+        deleteTask = metrics.operation("deleteTask");
+        searchTasks = metrics.operation("searchTasks");
+        getTasksByAssignee = metrics.operation("getTasksByAssignee");
+        getCompletedTasks = metrics.operation("getCompletedTasks");
+        getIncompleteTasks = metrics.operation("getIncompleteTasks");
+        markTaskAsCompleted = metrics.operation("markTaskAsCompleted");
+        getTaskCount = metrics.operation("getTaskCount");
+        getTasksSortedByDate = metrics.operation("getTasksSortedByDate");
+        checkDuplicates = metrics.operation("checkDuplicates");
+        getTasksDueBetween = metrics.operation("getTasksDueBetween");
+        getTasksDueWithinDays = metrics.operation("getTasksDueWithinDays");
+        getOverdueTasks = metrics.operation("getOverdueTasks");
+        getAllTasksPage = metrics.operation("getAllTasksPage");
+        searchTasksPage = metrics.operation("searchTasksPage");
+        getTasksByAssigneePage = metrics.operation("getTasksByAssigneePage");
+        getCompletedTasksPage = metrics.operation("getCompletedTasksPage");
+        getIncompleteTasksPage = metrics.operation("getIncompleteTasksPage");
+    }
+    
+    DaoMetrics getMetrics() {
+        return metrics;
+    }
+    
+    public boolean addTask(String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        return addTask.time(() -> delegate.addTask(taskTitle, taskText, assignedTo, completionDate));
+    }
+    
+    public Task[] getAllTasks() {
+        return getAllTasks.time(delegate::getAllTasks);
+    }
+    
+    public Task getTaskById(int taskId) throws TaskException {
+        // Written out - O(1), so a capturing lambda would be a good part of the call
+        long start = getTaskById.start();
+        try {
+            return delegate.getTaskById(taskId);
+        } catch (TaskException | RuntimeException e) {
+            getTaskById.failed(e);
+            throw e;
+        } finally {
+            getTaskById.finish(start);
+        }
+    }
+    
+    public boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
+        return updateTask.time(() -> delegate.updateTask(taskId, taskTitle, taskText, assignedTo, completionDate));
+    }
+    
+    public boolean deleteTask(int taskId) throws TaskException {
+        return deleteTask.time(() -> delegate.deleteTask(taskId));
+    }
+    
+    public Task[] searchTasks(String keyword) {
+        return searchTasks.time(() -> delegate.searchTasks(keyword));
+    }
+    
+    public Task[] getTasksByAssignee(String username) {
+        return getTasksByAssignee.time(() -> delegate.getTasksByAssignee(username));
+    }
+    
+    public Task[] getCompletedTasks(String username) {
+        return getCompletedTasks.time(() -> delegate.getCompletedTasks(username));
+    }
+    
+    public Task[] getIncompleteTasks(String username) {
+        return getIncompleteTasks.time(() -> delegate.getIncompleteTasks(username));
+    }
+    
+    public boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException {
+        // Written out because it throws two checked exception types
+        long start = markTaskAsCompleted.start();
+        try {
+            return delegate.markTaskAsCompleted(taskId, username);
+        } catch (VisitorException | TaskException | RuntimeException e) {
+            markTaskAsCompleted.failed(e);
+            throw e;
+        } finally {
+            markTaskAsCompleted.finish(start);
+        }
+    }
+    
+    public int getTaskCount() {
+        long start = getTaskCount.start();
+        try {
+            return delegate.getTaskCount();
+        } catch (RuntimeException e) {
+            getTaskCount.failed(e);
+            throw e;
+        } finally {
+            getTaskCount.finish(start);
+        }
+    }
+    
+    public Task[] getTasksSortedByDate(boolean ascending) {
+        return getTasksSortedByDate.time(() -> delegate.getTasksSortedByDate(ascending));
+    }
+    
+    public DuplicateReport checkDuplicates() {
+        return checkDuplicates.time(delegate::checkDuplicates);
+    }
+    
+    public Task[] getTasksDueBetween(LocalDate from, LocalDate to, String assignee, TaskStatus status) throws TaskException {
+        return getTasksDueBetween.time(() -> delegate.getTasksDueBetween(from, to, assignee, status));
+    }
+    
+    public Task[] getTasksDueWithinDays(int days, String assignee, TaskStatus status) throws TaskException {
+        return getTasksDueWithinDays.time(() -> delegate.getTasksDueWithinDays(days, assignee, status));
+    }
+    
+    public Task[] getOverdueTasks(String assignee) {
+        return getOverdueTasks.time(() -> delegate.getOverdueTasks(assignee));
+    }
+    
+    public TaskPage getAllTasksPage(int afterTaskId, int pageSize) {
+        return getAllTasksPage.time(() -> delegate.getAllTasksPage(afterTaskId, pageSize));
+    }
+    
+    public TaskPage searchTasksPage(String keyword, int afterTaskId, int pageSize) {
+        return searchTasksPage.time(() -> delegate.searchTasksPage(keyword, afterTaskId, pageSize));
+    }
+    
+    public TaskPage getTasksByAssigneePage(String username, int afterTaskId, int pageSize) {
+        return getTasksByAssigneePage.time(() -> delegate.getTasksByAssigneePage(username, afterTaskId, pageSize));
+    }
+    
+    public TaskPage getCompletedTasksPage(String username, int afterTaskId, int pageSize) {
+        return getCompletedTasksPage.time(() -> delegate.getCompletedTasksPage(username, afterTaskId, pageSize));
+    }
+    
+    public TaskPage getIncompleteTasksPage(String username, int afterTaskId, int pageSize) {
+        return getIncompleteTasksPage.time(() -> delegate.getIncompleteTasksPage(username, afterTaskId, pageSize));
+    }
+}
+
+/**
+ * InstrumentedUserDAO - decorator that records call metrics for another UserDAO
+ * Thread-safe if the delegate is
+ */
+class InstrumentedUserDAO implements UserDAO {
+    private final UserDAO delegate;
+    private final DaoMetrics metrics;
+    private final OperationStats registerUser;
+    private final OperationStats login;
+    private final OperationStats userExists;
+    private final OperationStats findUser;
+    private final OperationStats getAllUsers;
+    private final OperationStats getUserCount;
+    
+    public InstrumentedUserDAO(UserDAO delegate, int sampleEvery) {
+        this.delegate = delegate;
+        this.metrics = new DaoMetrics("UserDAO", sampleEvery, UserException.class);
+        registerUser = metrics.operation("registerUser");
+        login = metrics.operation("login");
+        userExists = metrics.operation("userExists");
+        findUser = metrics.operation("findUser");
+        getAllUsers = metrics.operation("getAllUsers");
+        getUserCount = metrics.operation("getUserCount");
+    }
+    
+    DaoMetrics getMetrics() {
+        return metrics;
+    }
+    
+    public boolean registerUser(String username, String password, String userType) throws UserException {
+        return registerUser.time(() -> delegate.registerUser(username, password, userType));
+    }
+    
+    public User login(String username, String password) throws UserException {
+        return login.time(() -> delegate.login(username, password));
+    }
+    
+    public boolean userExists(String username) {
+        // Written out - O(1), so a capturing lambda would be a good part of the call
+        long start = userExists.start();
+        try {
+            return delegate.userExists(username);
+        } catch (RuntimeException e) {
+            userExists.failed(e);
+            throw e;
+        } finally {
+            userExists.finish(start);
+        }
+    }
+    
+    public User findUser(String username) {
+        long start = findUser.start();
+        try {
+            return delegate.findUser(username);
+        } catch (RuntimeException e) {
+            findUser.failed(e);
+            throw e;
+        } finally {
+            findUser.finish(start);
+        }
+    }
+    
+    public User[] getAllUsers() {
+        return getAllUsers.time(delegate::getAllUsers);
+    }
+    
+    public int getUserCount() {
+        long start = getUserCount.start();
+        try {
+            return delegate.getUserCount();
+        } catch (RuntimeException e) {
+            getUserCount.failed(e);
+            throw e;
+        } finally {
+            getUserCount.finish(start);
+        }
+    }
+}
+
+/**
+ * JFR event for one task operation, emitted by ConcurrentTaskDAO around the whole
+ * call (lock wait included) once it returns or throws
+ * For reads, rows returned are the tasks (or duplicates) it gave back and tasks
+ * stored the size of the store it ran against, both counted by ConcurrentTaskDAO
+ * under the read lock - the stores themselves know nothing about the event.
+ * User is the assignee the operation was limited to, if any; Error is the
+ * exception it failed with.
+ * getTaskById and getTaskCount are O(1) and would only flood the recording, so
+ * they don't emit it.
+ */
+@Name("todo.TaskOperation")
+@Label("Task Operation")
+@Category("Todo Manager")
+@StackTrace(false)
+class TaskOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+    
+    @Label("User")
+    String user;
+    
+    @Label("Tasks Stored")
+    long tasksStored;
+    
+    @Label("Rows Returned")
+    long rowsReturned;
+    
+    @Label("Error")
+    String error;
+    
+    static TaskOperationEvent start(String operation, String user) {
+        TaskOperationEvent event = new TaskOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.user = user;
+        }
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Record what a read returned - only call when isEnabled()
+     */
+    void setRows(long tasksStored, long rowsReturned) {
+        this.tasksStored = tasksStored;
+        this.rowsReturned = rowsReturned;
+    }
+    
+    void fail(Throwable failure) {
+        if (isEnabled()) {
+            error = failure.toString();
+        }
+    }
+    
+    /**
+     * Close the operation - called exactly once, whether it succeeded or not
+     */
+    void finish() {
+        if (isEnabled()) {
+            MenuActionEvent.addRows(rowsReturned);
+            commit(); // Only written if it passes the recording's threshold
+        }
+    }
+}
+
+/**
+ * JFR event for one client or visitor menu action
+ * Rows returned add up the task operations the action ran on this thread
+ * (when todo.TaskOperation is enabled too), and the duration includes the time
+ * spent waiting for the user's input.
+ */
+@Name("todo.MenuAction")
+@Label("Menu Action")
+@Category("Todo Manager")
+@StackTrace(false)
+class MenuActionEvent extends Event {
+    private static final ThreadLocal<MenuActionEvent> CURRENT = new ThreadLocal<>();
+    
+    @Label("Menu")
+    String menu;
+    
+    @Label("Choice")
+    int choice;
+    
+    @Label("User")
+    String user;
+    
+    @Label("Rows Returned")
+    long rowsReturned;
+    
+    static MenuActionEvent start(String menu, int choice, String user) {
+        MenuActionEvent event = new MenuActionEvent();
+        if (event.isEnabled()) {
+            event.menu = menu;
+            event.choice = choice;
+            event.user = user;
+            CURRENT.set(event);
+        }
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Count a task operation's rows towards the action running on this thread, if any
+     */
+    static void addRows(long returned) {
+        MenuActionEvent action = CURRENT.get();
+        if (action != null) {
+            action.rowsReturned += returned;
+        }
+    }
+    
+    void finish() {
+        if (isEnabled()) {
+            CURRENT.remove();
+            commit(); // Only written if it passes the recording's threshold
+        }
+    }
+}
+
+// BENCHMARKS
+
+/**
+ * Seeded generator of realistic task data for benchmarks
+ * Assignees follow a Zipf distribution (a few users own most of the tasks), due dates
+ * cluster around two-week sprint ends, and titles are verb-object phrases whose words
+ * are also Zipf-distributed, so some words are far more common than others.
+ * The same seed always produces the same data.
+ */
+class WorkloadGenerator {
+    static final double ZIPF_EXPONENT = 1.1;
+    private static final int SPRINT_DAYS = 14;
+    private static final int SPRINTS_AHEAD = 13; // Due dates reach about half a year ahead
+    
+    private static final String[] VERBS = {"review", "update", "fix", "write", "prepare", "send", "check",
+        "plan", "test", "deploy", "clean up", "schedule", "draft", "merge", "book"};
+    private static final String[] OBJECTS = {"report", "budget", "invoice", "release notes", "meeting agenda",
+        "login page", "backup job", "client email", "sprint board", "test plan", "database index",
+        "travel request", "onboarding guide", "security audit", "newsletter", "roadmap", "payroll",
+        "dashboard", "contract", "slides"};
+    private static final String[] QUALIFIERS = {"for Monday", "for the team", "before the demo", "again",
+        "for Q3", "with finance", "for the client", "in staging"};
+    private static final String[] FILLER = {"the", "and", "with", "latest", "numbers", "from", "last",
+        "week", "make", "sure", "it", "matches", "notes", "please", "team", "version", "before", "sending"};
+    
+    private final Random random;
+    private final int userCount;
+    private final int today;
+    private final double[] userWeights;   // Cumulative Zipf weights, sampled by binary search
+    private final double[] verbWeights;
+    private final double[] objectWeights;
+    private final double[] sprintWeights;
+    
+    /**
+     * userCount = number of distinct assignees ("user1" is the busiest)
+     */
+    WorkloadGenerator(long seed, int userCount) {
+        this.random = new Random(seed);
+        this.userCount = userCount;
+        this.today = DateCodec.today();
+        this.userWeights = cumulativeZipf(userCount);
+        this.verbWeights = cumulativeZipf(VERBS.length);
+        this.objectWeights = cumulativeZipf(OBJECTS.length);
+        this.sprintWeights = cumulativeZipf(SPRINTS_AHEAD);
+    }
+    
+    int getUserCount() {
+        return userCount;
+    }
+    
+    static String username(int rank) {
+        return "user" + rank;
+    }
+    
+    static String password(int rank) {
+        return "pw" + rank;
+    }
+    
+    /**
+     * An assignee, busy users more often
+     */
+    String assignee() {
+        return username(sample(userWeights) + 1);
+    }
+    
+    String title() {
+        String title = VERBS[sample(verbWeights)] + " " + OBJECTS[sample(objectWeights)];
+        return random.nextBoolean() ? title : title + " " + QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+    }
+    
+    String description() {
+        StringBuilder text = new StringBuilder(title());
+        int words = 6 + random.nextInt(10);
+        for (int i = 0; i < words; i++) {
+            text.append(' ').append(FILLER[random.nextInt(FILLER.length)]);
+        }
+        return text.toString();
+    }
+    
+    /**
+     * A due date near one of the coming sprint ends (nearer sprints more often), never in the past
+     */
+    LocalDate dueDate() {
+        int sprintEnd = today + (sample(sprintWeights) + 1) * SPRINT_DAYS;
+        int day = sprintEnd + (int) Math.round(random.nextGaussian() * 2);
+        return DateCodec.toDate(Math.max(today, day));
+    }
+    
+    /**
+     * A search keyword - an object from the titles, as common as it is there
+     */
+    String keyword() {
+        return OBJECTS[sample(objectWeights)];
+    }
+    
+    int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+    
+    /**
+     * Cumulative weights of ranks 1..n with weight 1 / rank^ZIPF_EXPONENT
+     */
+    private static double[] cumulativeZipf(int n) {
+        double[] weights = new double[n];
+        double total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            total += 1 / Math.pow(rank, ZIPF_EXPONENT);
+            weights[rank - 1] = total;
+        }
+        return weights;
+    }
+    
+    private int sample(double[] cumulativeWeights) {
+        double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, point);
+        return Math.min(index >= 0 ? index : -(index + 1), cumulativeWeights.length - 1);
+    }
+}
+
+/**
+ * Benchmark suite for the TaskDAO and UserDAO hot paths
+ * Usage: java DaoBenchmark [--sizes 100,10000,100000] [--tasks array,offheap,columnar,concurrent,durable,instrumented,mapped]
+ *                          [--users array,durable,instrumented] [--seed 42] [--out dao-benchmark.json]
+ * Every operation runs against every chosen implementation, filled with the same
+ * WorkloadGenerator data for each store size (up to 10000000 if memory allows).
+ * Each measurement is 3 warmup and 5 measured iterations of 300 ms. Call parameters
+ * are drawn before each timed batch, so the generator itself isn't measured.
+ * Operations that change the store get a freshly filled one for every iteration (the
+ * fill isn't timed) and make at most a tenth of the store size in calls (at least 100),
+ * so the store an iteration measures is within 10% of its nominal size.
+ * "instrumented" is the array store behind the JMX metrics decorator, to compare its overhead.
+ * The durable user store hashes passwords with a single PBKDF2 iteration, so it measures
+ * the store rather than the (deliberately slow) password hash.
+ * Results are printed as a table and written as JSON for comparing runs.
+ */
+class DaoBenchmark {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = TimeUnit.MILLISECONDS.toNanos(300);
+    private static final long BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(10); // Batches grow until one takes this long
+    private static final int MAX_BATCH = 1 << 16;
+    private static final int WRITE_SHARE = 10;       // A changing operation makes at most size / WRITE_SHARE calls per iteration
+    private static final int MIN_WRITES = 100;       // ... but at least this many, so tiny stores still get a timed batch
+    private static final int COMPLETED_PERCENT = 30; // Share of the filled tasks that start completed
+    private static final int HASH_ITERATIONS = 1;    // PBKDF2 cost in the durable user store
+    
+    private static volatile long sink; // Results are folded in here so the JIT can't drop the calls
+    
+    /**
+     * One benchmarked operation
+     * prepare() draws the parameters of the next count calls (not timed), run() makes call i (timed)
+     */
+    private interface Operation {
+        void prepare(int count) throws Exception;
+        long run(int i) throws Exception;
+    }
+    
+    /**
+     * Gives the operation for the next iteration
+     * Reads reuse one operation; writes bind a new one to a freshly filled store
+     */
+    private interface OperationSource {
+        Operation next() throws Exception;
+    }
+    
+    /**
+     * Creates a store of some implementation, filled with size tasks or users
+     */
+    private interface StoreFactory<T> {
+        T create(Path directory, WorkloadGenerator generator, int size) throws Exception;
+    }
+    
+    /**
+     * Binds an operation to a filled store
+     * tasksAdded holds the number of tasks added so far (task IDs run from 1 to it)
+     */
+    private interface TaskOperation {
+        Operation bind(TaskDAO dao, WorkloadGenerator generator, int[] tasksAdded);
+    }
+    
+    private interface UserOperation {
+        Operation bind(UserDAO dao, WorkloadGenerator generator, int size);
+    }
+    
+    private static final LinkedHashMap<String, StoreFactory<TaskDAO>> TASK_STORES = new LinkedHashMap<>();
+    private static final LinkedHashMap<String, StoreFactory<UserDAO>> USER_STORES = new LinkedHashMap<>();
+    private static final LinkedHashMap<String, TaskOperation> TASK_READS = new LinkedHashMap<>();
+    private static final LinkedHashMap<String, TaskOperation> TASK_WRITES = new LinkedHashMap<>();
+    private static final LinkedHashMap<String, UserOperation> USER_READS = new LinkedHashMap<>();
+    private static final LinkedHashMap<String, UserOperation> USER_WRITES = new LinkedHashMap<>();
+    
+    static {
+        TASK_STORES.put("array", (directory, generator, size) -> fill(new TaskDAOImpl(size), generator, size));
+        TASK_STORES.put("offheap", (directory, generator, size) ->
+            fill(new TaskDAOImpl(size, new OffHeapTextArena()), generator, size));
+        TASK_STORES.put("columnar", (directory, generator, size) -> fill(new ColumnarTaskDAO(size), generator, size));
+        TASK_STORES.put("concurrent", (directory, generator, size) ->
+            fill(new ConcurrentTaskDAO(new TaskDAOImpl(size)), generator, size));
+        TASK_STORES.put("durable", (directory, generator, size) ->
+            fill(new DurableTaskDAO(directory, FsyncPolicy.INTERVAL, Integer.MAX_VALUE), generator, size));
+        TASK_STORES.put("instrumented", (directory, generator, size) ->
+            new InstrumentedTaskDAO(fill(new TaskDAOImpl(size), generator, size), DaoMetrics.DEFAULT_SAMPLE_EVERY));
+        TASK_STORES.put("mapped", (directory, generator, size) -> {
+            TaskDAOImpl source = fill(new TaskDAOImpl(size), generator, size);
+            Files.createDirectories(directory);
+            Path file = directory.resolve("tasks.map");
+            MappedTaskFile.write(file, source.getAllTasks(), source.getNextId());
+            return new MappedTaskDAO(file);
+        });
         
-        // Validate title
-        if (taskTitle == null || taskTitle.trim().isEmpty()) {
-            throw new TaskException("Task title cannot be empty.");
+        USER_STORES.put("array", (directory, generator, size) -> register(new UserDAOImpl(size), size));
+        USER_STORES.put("durable", (directory, generator, size) ->
+            register(new DurableUserDAO(directory, FsyncPolicy.INTERVAL, Integer.MAX_VALUE, HASH_ITERATIONS), size));
+        USER_STORES.put("instrumented", (directory, generator, size) ->
+            new InstrumentedUserDAO(register(new UserDAOImpl(size), size), DaoMetrics.DEFAULT_SAMPLE_EVERY));
+        
+        TASK_READS.put("getTaskById", (dao, generator, tasksAdded) -> {
+            int[] ids = new int[MAX_BATCH];
+            return operation(count -> {
+                for (int i = 0; i < count; i++) {
+                    ids[i] = 1 + generator.nextInt(tasksAdded[0]);
+                }
+            }, i -> dao.getTaskById(ids[i]).getTaskId());
+        });
+        TASK_READS.put("searchTasks", (dao, generator, tasksAdded) -> {
+            String[] keywords = new String[MAX_BATCH];
+            return operation(count -> {
+                for (int i = 0; i < count; i++) {
+                    keywords[i] = generator.keyword();
+                }
+            }, i -> dao.searchTasks(keywords[i]).length);
+        });
+        TASK_READS.put("getTasksByAssignee", (dao, generator, tasksAdded) -> {
+            String[] assignees = new String[MAX_BATCH];
+            return operation(count -> {
+                for (int i = 0; i < count; i++) {
+                    assignees[i] = generator.assignee();
+                }
+            }, i -> dao.getTasksByAssignee(assignees[i]).length);
+        });
+        TASK_READS.put("getTasksSortedByDate", (dao, generator, tasksAdded) ->
+            operation(count -> { }, i -> dao.getTasksSortedByDate(i % 2 == 0).length));
+        TASK_READS.put("checkDuplicates", (dao, generator, tasksAdded) ->
+            operation(count -> { }, i -> dao.checkDuplicates().getGroups().length));
+        
+        TASK_WRITES.put("addTask", (dao, generator, tasksAdded) -> {
+            String[] titles = new String[MAX_BATCH];
+            String[] texts = new String[MAX_BATCH];
+            String[] assignees = new String[MAX_BATCH];
+            LocalDate[] dates = new LocalDate[MAX_BATCH];
+            return operation(count -> {
+                for (int i = 0; i < count; i++) {
+                    titles[i] = generator.title();
+                    texts[i] = generator.description();
+                    assignees[i] = generator.assignee();
+                    dates[i] = generator.dueDate();
+                }
+            }, i -> {
+                tasksAdded[0]++;
+                return dao.addTask(titles[i], texts[i], assignees[i], dates[i]) ? 1 : 0;
+            });
+        });
+        TASK_WRITES.put("markTaskAsCompleted", (dao, generator, tasksAdded) -> {
+            int[] ids = new int[MAX_BATCH];
+            String[] assignees = new String[MAX_BATCH];
+            return operation(count -> {
+                // Every call needs an incomplete task, add fresh ones
+                for (int i = 0; i < count; i++) {
+                    assignees[i] = generator.assignee();
+                    dao.addTask(generator.title(), generator.description(), assignees[i], generator.dueDate());
+                    tasksAdded[0]++;
+                    ids[i] = tasksAdded[0];
+                }
+            }, i -> dao.markTaskAsCompleted(ids[i], assignees[i]) ? 1 : 0);
+        });
+        
+        USER_READS.put("login", (dao, generator, size) -> {
+            int[] ranks = new int[MAX_BATCH];
+            return operation(count -> {
+                for (int i = 0; i < count; i++) {
+                    ranks[i] = 1 + generator.nextInt(size);
+                }
+            }, i -> dao.login(WorkloadGenerator.username(ranks[i]), WorkloadGenerator.password(ranks[i])).getUsername().length());
+        });
+        USER_WRITES.put("registerUser", (dao, generator, size) -> {
+            String[] names = new String[MAX_BATCH];
+            int[] registered = {size};
+            return operation(count -> {
+                for (int i = 0; i < count; i++) {
+                    registered[0]++;
+                    names[i] = WorkloadGenerator.username(registered[0]);
+                }
+            }, i -> dao.registerUser(names[i], "secret", i % 4 == 0 ? "client" : "visitor") ? 1 : 0);
+        });
+    }
+    
+    /**
+     * Lambda-friendly parts of an Operation
+     */
+    private interface Prepare {
+        void prepare(int count) throws Exception;
+    }
+    
+    private interface Call {
+        long run(int i) throws Exception;
+    }
+    
+    private static Operation operation(Prepare prepare, Call call) {
+        return new Operation() {
+            public void prepare(int count) throws Exception {
+                prepare.prepare(count);
+            }
+            
+            public long run(int i) throws Exception {
+                return call.run(i);
+            }
+        };
+    }
+    
+    /**
+     * One row of the results
+     */
+    private static final class Result {
+        final String suite;
+        final String store;
+        final String operation;
+        final int size;
+        final double[] opsPerSecond;
+        
+        Result(String suite, String store, String operation, int size, double[] opsPerSecond) {
+            this.suite = suite;
+            this.store = store;
+            this.operation = operation;
+            this.size = size;
+            this.opsPerSecond = opsPerSecond;
         }
         
-        // Validate description
-        if (taskText == null || taskText.trim().isEmpty()) {
-            throw new TaskException("Task description cannot be empty.");
+        double mean() {
+            double total = 0;
+            for (double value : opsPerSecond) {
+                total += value;
+            }
+            return total / opsPerSecond.length;
         }
         
-        // Validate completion date exists
-        if (completionDate == null) {
-            throw new TaskException("Completion date cannot be null.");
+        double stdev() {
+            double mean = mean();
+            double squares = 0;
+            for (double value : opsPerSecond) {
+                squares += (value - mean) * (value - mean);
+            }
+            return opsPerSecond.length > 1 ? Math.sqrt(squares / (opsPerSecond.length - 1)) : 0;
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {100, 10_000, 100_000};
+        String[] taskStores = TASK_STORES.keySet().toArray(new String[0]);
+        String[] userStores = USER_STORES.keySet().toArray(new String[0]);
+        long seed = 42;
+        Path out = Paths.get("dao-benchmark.json");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--tasks":
+                    taskStores = value.isEmpty() ? new String[0] : value.split(",");
+                    break;
+                case "--users":
+                    userStores = value.isEmpty() ? new String[0] : value.split(",");
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
         }
         
-        // Sprint 5: Ensure date is not in the past
-        if (completionDate.isBefore(LocalDate.now())) {
-            throw new TaskException("Completion date cannot be in the past.");
+        ArrayList<Result> results = new ArrayList<>();
+        Path directory = Files.createTempDirectory("dao-bench");
+        System.out.printf("%-6s %-11s %-22s %10s %14s %10s %12s%n", "suite", "store", "operation", "size", "ops/s", "+-", "ns/op");
+        try {
+            for (int size : sizes) {
+                for (String store : taskStores) {
+                    runTasks(directory, store, size, seed, results);
+                }
+                for (String store : userStores) {
+                    runUsers(directory, store, size, seed, results);
+                }
+            }
+        } finally {
+            deleteTree(directory);
         }
+        writeJson(out, seed, results);
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+    
+    private static void runTasks(Path directory, String store, int size, long seed, ArrayList<Result> results) throws Exception {
+        StoreFactory<TaskDAO> factory = factory(TASK_STORES, store);
+        Path storeDirectory = directory.resolve("tasks-" + store + "-" + size);
+        TaskDAO dao = factory.create(storeDirectory, generator(seed, size), size);
+        int[] tasksAdded = {size};
+        WorkloadGenerator generator = generator(seed + 1, size);
+        for (String name : TASK_READS.keySet()) {
+            Operation read = TASK_READS.get(name).bind(dao, generator, tasksAdded);
+            record(results, "task", store, name, size, () -> read, Integer.MAX_VALUE);
+        }
+        close(dao, storeDirectory);
         
-        // Create and add new task
-        Task newTask = new Task(nextId, taskTitle, taskText, assignedTo, completionDate);
-        tasks[taskCount] = newTask;
-        taskCount++;
-        nextId++; // Increment ID for next task
-        return true;
+        for (String name : TASK_WRITES.keySet()) {
+            TaskOperation write = TASK_WRITES.get(name);
+            TaskDAO[] current = new TaskDAO[1];
+            record(results, "task", store, name, size, () -> {
+                close(current[0], storeDirectory);
+                current[0] = factory.create(storeDirectory, generator(seed, size), size);
+                tasksAdded[0] = size;
+                return write.bind(current[0], generator, tasksAdded);
+            }, maxWrites(size));
+            close(current[0], storeDirectory);
+        }
+    }
+    
+    private static void runUsers(Path directory, String store, int size, long seed, ArrayList<Result> results) throws Exception {
+        StoreFactory<UserDAO> factory = factory(USER_STORES, store);
+        Path storeDirectory = directory.resolve("users-" + store + "-" + size);
+        WorkloadGenerator generator = generator(seed + 1, size);
+        UserDAO dao = factory.create(storeDirectory, generator, size);
+        for (String name : USER_READS.keySet()) {
+            Operation read = USER_READS.get(name).bind(dao, generator, size);
+            record(results, "user", store, name, size, () -> read, Integer.MAX_VALUE);
+        }
+        close(dao, storeDirectory);
+        
+        for (String name : USER_WRITES.keySet()) {
+            UserOperation write = USER_WRITES.get(name);
+            UserDAO[] current = new UserDAO[1];
+            record(results, "user", store, name, size, () -> {
+                close(current[0], storeDirectory);
+                current[0] = factory.create(storeDirectory, generator, size);
+                return write.bind(current[0], generator, size);
+            }, maxWrites(size));
+            close(current[0], storeDirectory);
+        }
+    }
+    
+    /**
+     * Calls per iteration of an operation that grows a store of this size
+     */
+    private static int maxWrites(int size) {
+        return Math.max(size / WRITE_SHARE, MIN_WRITES);
+    }
+    
+    private static <T> StoreFactory<T> factory(LinkedHashMap<String, StoreFactory<T>> factories, String store) {
+        StoreFactory<T> factory = factories.get(store);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown store " + store + ", expected one of " + factories.keySet());
+        }
+        return factory;
+    }
+    
+    /**
+     * Generator for a store size - about 100 tasks per assignee, at least 10 assignees
+     */
+    private static WorkloadGenerator generator(long seed, int size) {
+        return new WorkloadGenerator(seed, Math.max(10, size / 100));
+    }
+    
+    private static <T extends TaskDAO> T fill(T dao, WorkloadGenerator generator, int size) throws Exception {
+        String[] assignees = new String[size];
+        for (int i = 0; i < size; i++) {
+            assignees[i] = generator.assignee();
+            dao.addTask(generator.title(), generator.description(), assignees[i], generator.dueDate());
+        }
+        for (int i = 0; i < size; i++) {
+            if (generator.nextInt(100) < COMPLETED_PERCENT) {
+                dao.markTaskAsCompleted(i + 1, assignees[i]);
+            }
+        }
+        return dao;
+    }
+    
+    private static <T extends UserDAO> T register(T dao, int size) throws UserException {
+        for (int rank = 1; rank <= size; rank++) {
+            dao.registerUser(WorkloadGenerator.username(rank), WorkloadGenerator.password(rank), rank % 4 == 0 ? "client" : "visitor");
+        }
+        return dao;
     }
     
     /**
-     * Get all tasks (READ operation)
-     * Returns a copy of all active tasks
+     * Close a store (null = none yet) and delete its files
      */
-    public Task[] getAllTasks() {
-        Task[] activeTasks = new Task[taskCount];
-        for (int i = 0; i < taskCount; i++) {
-            activeTasks[i] = tasks[i];
+    private static void close(Object dao, Path storeDirectory) throws IOException {
+        if (dao instanceof Closeable) {
+            ((Closeable) dao).close();
         }
-        return activeTasks;
+        deleteTree(storeDirectory);
+    }
+    
+    private static void record(ArrayList<Result> results, String suite, String store, String name, int size,
+                               OperationSource operations, int maxCalls) throws Exception {
+        Result result = new Result(suite, store, name, size, measure(operations, maxCalls));
+        results.add(result);
+        System.out.printf("%-6s %-11s %-22s %10d %14.1f %10.1f %12.1f%n", suite, store, name, size,
+            result.mean(), result.stdev(), 1e9 / result.mean());
     }
     
     /**
-     * Find task by ID (READ operation)
-     * Sprint 5: Throws TaskException if not found
+     * Run warmup and measured iterations, returning the ops/s of each measured one
+     * Batches double in size until one takes BATCH_NANOS, only the calls themselves are timed;
+     * an iteration ends after ITERATION_NANOS or maxCalls calls, whichever comes first.
+     * Every iteration, warmup included, starts with operations.next()
      */
-    public Task getTaskById(int taskId) throws TaskException {
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId() == taskId) {
-                return tasks[i];
+    private static double[] measure(OperationSource operations, int maxCalls) throws Exception {
+        double[] opsPerSecond = new double[MEASURED_ITERATIONS];
+        int batch = 1;
+        long consumed = 0;
+        for (int iteration = -WARMUP_ITERATIONS; iteration < MEASURED_ITERATIONS; iteration++) {
+            Operation operation = operations.next();
+            long timed = 0;
+            long calls = 0;
+            long end = System.nanoTime() + ITERATION_NANOS;
+            while (System.nanoTime() < end && calls < maxCalls) {
+                int count = (int) Math.min(batch, maxCalls - calls);
+                operation.prepare(count);
+                long begin = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    consumed += operation.run(i);
+                }
+                long elapsed = System.nanoTime() - begin;
+                timed += elapsed;
+                calls += count;
+                if (elapsed < BATCH_NANOS && batch < MAX_BATCH) {
+                    batch *= 2;
+                }
+            }
+            if (iteration >= 0) {
+                opsPerSecond[iteration] = calls * 1e9 / timed;
             }
         }
-        throw new TaskException("Task with ID " + taskId + " not found.");
+        sink += consumed;
+        return opsPerSecond;
     }
     
-    /**
-     * Update existing task (UPDATE operation)
-     * Sprint 5: Includes completion date parameter
-     */
-    public boolean updateTask(int taskId, String taskTitle, String taskText, String assignedTo, LocalDate completionDate) throws TaskException {
-        // Validate inputs
-        if (taskTitle == null || taskTitle.trim().isEmpty()) {
-            throw new TaskException("Task title cannot be empty.");
-        }
-        if (taskText == null || taskText.trim().isEmpty()) {
-            throw new TaskException("Task description cannot be empty.");
+    private static void writeJson(Path out, long seed, ArrayList<Result> results) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"seed\": ").append(seed)
+            .append(",\n  \"warmupIterations\": ").append(WARMUP_ITERATIONS)
+            .append(",\n  \"measuredIterations\": ").append(MEASURED_ITERATIONS)
+            .append(",\n  \"iterationMillis\": ").append(TimeUnit.NANOSECONDS.toMillis(ITERATION_NANOS))
+            .append(",\n  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                .append("    {\"suite\": \"").append(result.suite)
+                .append("\", \"store\": \"").append(result.store)
+                .append("\", \"operation\": \"").append(result.operation)
+                .append("\", \"size\": ").append(result.size)
+                .append(", \"opsPerSecond\": ").append(String.format(Locale.ROOT, "%.3f", result.mean()))
+                .append(", \"opsPerSecondStdev\": ").append(String.format(Locale.ROOT, "%.3f", result.stdev()))
+                .append(", \"nsPerOp\": ").append(String.format(Locale.ROOT, "%.3f", 1e9 / result.mean()))
+                .append(", \"iterations\": [");
+            for (int k = 0; k < result.opsPerSecond.length; k++) {
+                json.append(k == 0 ? "" : ", ").append(String.format(Locale.ROOT, "%.3f", result.opsPerSecond[k]));
+            }
+            json.append("]}");
         }
-        if (completionDate == null) {
-            throw new TaskException("Completion date cannot be null.");
+        json.append("\n  ]\n}\n");
+        Files.write(out, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
         }
-        
-        // Find and update task
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId() == taskId) {
-                tasks[i].setTaskTitle(taskTitle);
-                tasks[i].setTaskText(taskText);
-                tasks[i].setAssignedTo(assignedTo);
-                tasks[i].setCompletionDate(completionDate);
-                return true;
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
             }
         }
-        throw new TaskException("Task with ID " + taskId + " not found.");
     }
+}
+
+/**
+ * Synthetic multi-user load against the DAO layer
+ * Usage: java LoadGenerator [--clients 200] [--visitors 2000] [--rate 5000] [--duration 30]
+ *                           [--warmup 5] [--threads 64] [--store memory|durable] [--seed 42]
+ * Simulated clients and visitors start unregistered, register and log in on their first
+ * turn, then run the menu's operations:
+ *   client:  add 45%, search 45%, login 10%
+ *   visitor: view my tasks 55%, mark complete 25%, search 10%, login 10%
+ * Requests are scheduled open-loop at the target rate (--rate 0 = as fast as possible), and
+ * latency is measured from each request's scheduled start. A stalled store therefore shows
+ * up in the percentiles instead of silently lowering the request rate.
+ * Prints p50/p99/p99.9/max per operation plus the achieved and the peak one-second throughput.
+ */
+class LoadGenerator {
+    private static final String[] OPERATIONS = {"register", "login", "add", "search", "view-my-tasks", "mark-complete"};
+    private static final int REGISTER = 0;
+    private static final int LOGIN = 1;
+    private static final int ADD = 2;
+    private static final int SEARCH = 3;
+    private static final int VIEW_MY_TASKS = 4;
+    private static final int MARK_COMPLETE = 5;
     
     /**
-     * Delete task (DELETE operation)
-     * Shifts remaining tasks to fill the gap
+     * One simulated user
+     * Sessions are shared by the worker threads, so a session is only used by one at a time
      */
-    public boolean deleteTask(int taskId) throws TaskException {
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId() == taskId) {
-                // Shift all tasks after deleted task one position left
-                for (int j = i; j < taskCount - 1; j++) {
-                    tasks[j] = tasks[j + 1];
-                }
-                tasks[taskCount - 1] = null; // Clear last position
-                taskCount--;
-                return true;
-            }
+    private static final class Session {
+        final String username;
+        final String password;
+        final boolean client;
+        boolean registered;
+        
+        Session(String username, String password, boolean client) {
+            this.username = username;
+            this.password = password;
+            this.client = client;
         }
-        throw new TaskException("Task with ID " + taskId + " not found.");
     }
     
     /**
-     * Search tasks by keyword (SEARCH operation)
-     * Searches in title, description, and assignedTo fields
+     * Per-thread results, merged at the end
      */
-    public Task[] searchTasks(String keyword) {
-        Task[] results = new Task[taskCount];
-        int resultCount = 0;
+    private static final class WorkerStats {
+        final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+        final long[] errors = new long[OPERATIONS.length];
         
-        // Search through all tasks
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskTitle().toLowerCase().contains(keyword.toLowerCase()) ||
-                tasks[i].getTaskText().toLowerCase().contains(keyword.toLowerCase()) ||
-                tasks[i].getAssignedTo().toLowerCase().contains(keyword.toLowerCase())) {
-                results[resultCount] = tasks[i];
-                resultCount++;
+        WorkerStats() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
             }
         }
-        
-        // Create array with exact size of results
-        Task[] finalResults = new Task[resultCount];
-        for (int i = 0; i < resultCount; i++) {
-            finalResults[i] = results[i];
+    }
+    
+    private final UserDAO userDAO;
+    private final TaskDAO taskDAO;
+    private final Session[] sessions;
+    private final int visitorCount;
+    private final long seed;
+    
+    LoadGenerator(UserDAO userDAO, TaskDAO taskDAO, int clients, int visitors, long seed) {
+        this.userDAO = userDAO;
+        this.taskDAO = taskDAO;
+        this.visitorCount = visitors;
+        this.seed = seed;
+        this.sessions = new Session[clients + visitors];
+        for (int i = 0; i < visitors; i++) {
+            sessions[i] = new Session(WorkloadGenerator.username(i + 1), WorkloadGenerator.password(i + 1), false);
+        }
+        for (int i = 0; i < clients; i++) {
+            sessions[visitors + i] = new Session("client" + (i + 1), "pw" + (i + 1), true);
         }
-        return finalResults;
     }
     
-    /**
-     * Get tasks assigned to a specific user
-     * Used by visitors to see their tasks
-     */
-    public Task[] getTasksByAssignee(String username) {
-        Task[] results = new Task[taskCount];
-        int resultCount = 0;
-        
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getAssignedTo().equals(username)) {
-                results[resultCount] = tasks[i];
-                resultCount++;
+    public static void main(String[] args) throws Exception {
+        int clients = 200;
+        int visitors = 2_000;
+        int rate = 5_000;
+        int durationSeconds = 30;
+        int warmupSeconds = 5;
+        int threads = 64;
+        String store = "memory";
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--clients":
+                    clients = Integer.parseInt(value);
+                    break;
+                case "--visitors":
+                    visitors = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    rate = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    durationSeconds = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--store":
+                    store = value;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
             }
         }
+        if (clients < 1 || visitors < 1 || threads < 1 || rate < 0 || durationSeconds < 1 || warmupSeconds < 0) {
+            throw new IllegalArgumentException("Need at least one client, visitor and thread, and a positive duration.");
+        }
+        
+        UserDAO users;
+        TaskDAO tasks;
+        ArrayList<Closeable> toClose = new ArrayList<>();
+        if (store.equals("durable")) {
+            Path directory = Files.createTempDirectory("load-gen");
+            DurableUserDAO durableUsers = new DurableUserDAO(directory, FsyncPolicy.GROUP_COMMIT);
+            DurableTaskDAO durableTasks = new DurableTaskDAO(directory, FsyncPolicy.GROUP_COMMIT);
+            toClose.add(durableUsers);
+            toClose.add(durableTasks);
+            users = durableUsers;
+            tasks = durableTasks;
+            System.out.println("Durable stores (group commit) in " + directory);
+        } else if (store.equals("memory")) {
+            users = new UserDAOImpl();
+            tasks = new TaskDAOImpl();
+        } else {
+            throw new IllegalArgumentException("Unknown store " + store + ", expected memory or durable");
+        }
         
-        Task[] finalResults = new Task[resultCount];
-        for (int i = 0; i < resultCount; i++) {
-            finalResults[i] = results[i];
+        LoadGenerator generator = new LoadGenerator(new ConcurrentUserDAO(users), new ConcurrentTaskDAO(tasks), clients, visitors, seed);
+        try {
+            generator.run(rate, threads, TimeUnit.SECONDS.toNanos(warmupSeconds), TimeUnit.SECONDS.toNanos(durationSeconds));
+        } finally {
+            for (Closeable closeable : toClose) {
+                closeable.close();
+            }
         }
-        return finalResults;
     }
     
     /**
-     * Sprint 5: Get only completed tasks for a user
+     * Run the load and print the report
+     * Requests scheduled during the warmup run but aren't recorded
      */
-    public Task[] getCompletedTasks(String username) {
-        Task[] results = new Task[taskCount];
-        int resultCount = 0;
-        
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getAssignedTo().equals(username) && tasks[i].isCompleted()) {
-                results[resultCount] = tasks[i];
-                resultCount++;
-            }
+    void run(int rate, int threadCount, long warmupNanos, long durationNanos) throws InterruptedException {
+        long intervalNanos = rate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        int seconds = (int) TimeUnit.NANOSECONDS.toSeconds(durationNanos) + 1;
+        AtomicLong nextRequest = new AtomicLong();
+        AtomicLongArray perSecond = new AtomicLongArray(seconds); // Requests completed in each second of the run
+        WorkerStats[] stats = new WorkerStats[threadCount];
+        Thread[] workers = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            WorkerStats workerStats = new WorkerStats();
+            WorkloadGenerator workload = new WorkloadGenerator(seed + t, visitorCount); // Assigns to visitors user1..userN
+            stats[t] = workerStats;
+            workers[t] = new Thread(() -> {
+                while (true) {
+                    long request = nextRequest.getAndIncrement();
+                    long scheduled = intervalNanos == 0 ? System.nanoTime() : start + request * intervalNanos;
+                    if (scheduled >= end) {
+                        return;
+                    }
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    Session session = sessions[(int) (request % sessions.length)];
+                    int operation;
+                    boolean ok;
+                    synchronized (session) {
+                        operation = chooseOperation(session, workload);
+                        ok = perform(operation, session, workload);
+                    }
+                    long finished = System.nanoTime();
+                    if (scheduled >= measureFrom) {
+                        workerStats.latencies[operation].record(finished - scheduled);
+                        if (!ok) {
+                            workerStats.errors[operation]++;
+                        }
+                        int second = (int) ((finished - measureFrom) / TimeUnit.SECONDS.toNanos(1));
+                        if (second < seconds) {
+                            perSecond.incrementAndGet(second);
+                        }
+                    }
+                }
+            }, "load-" + t);
+            workers[t].start();
         }
-        
-        Task[] finalResults = new Task[resultCount];
-        for (int i = 0; i < resultCount; i++) {
-            finalResults[i] = results[i];
+        for (Thread worker : workers) {
+            worker.join();
         }
-        return finalResults;
+        report(rate, durationNanos, stats, perSecond);
     }
     
     /**
-     * Sprint 5: Get only incomplete tasks for a user
+     * Next operation for a session: register first, then the role's mix
      */
-    public Task[] getIncompleteTasks(String username) {
-        Task[] results = new Task[taskCount];
-        int resultCount = 0;
-        
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getAssignedTo().equals(username) && !tasks[i].isCompleted()) {
-                results[resultCount] = tasks[i];
-                resultCount++;
-            }
+    private static int chooseOperation(Session session, WorkloadGenerator workload) {
+        if (!session.registered) {
+            return REGISTER;
         }
-        
-        Task[] finalResults = new Task[resultCount];
-        for (int i = 0; i < resultCount; i++) {
-            finalResults[i] = results[i];
+        int roll = workload.nextInt(100);
+        if (roll < 10) {
+            return LOGIN;
+        }
+        if (session.client) {
+            return roll < 55 ? ADD : SEARCH;
         }
-        return finalResults;
+        if (roll < 20) {
+            return SEARCH;
+        }
+        return roll < 75 ? VIEW_MY_TASKS : MARK_COMPLETE;
     }
     
     /**
-     * Sprint 5: Mark task as completed
-     * Only the assigned user can mark their own tasks as completed
+     * Do one operation the way the menu does it; false if the store rejected it
      */
-    public boolean markTaskAsCompleted(int taskId, String username) throws VisitorException, TaskException {
-        Task task = null;
-        
-        // Find the task
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId() == taskId) {
-                task = tasks[i];
-                break;
+    private boolean perform(int operation, Session session, WorkloadGenerator workload) {
+        try {
+            switch (operation) {
+                case REGISTER:
+                    userDAO.registerUser(session.username, session.password, session.client ? "client" : "visitor");
+                    userDAO.login(session.username, session.password);
+                    session.registered = true;
+                    return true;
+                case LOGIN:
+                    userDAO.login(session.username, session.password);
+                    return true;
+                case ADD:
+                    // Clients assign to visitors, the busiest ones most often
+                    taskDAO.addTask(workload.title(), workload.description(), workload.assignee(), workload.dueDate());
+                    return true;
+                case SEARCH:
+                    taskDAO.searchTasks(workload.keyword());
+                    return true;
+                case VIEW_MY_TASKS:
+                    taskDAO.getTasksByAssignee(session.username);
+                    return true;
+                case MARK_COMPLETE:
+                    Task[] open = taskDAO.getIncompleteTasks(session.username);
+                    if (open.length > 0) {
+                        taskDAO.markTaskAsCompleted(open[workload.nextInt(open.length)].getTaskId(), session.username);
+                    }
+                    return true;
+                default:
+                    throw new IllegalArgumentException("Unknown operation " + operation);
             }
+        } catch (UserException | TaskException | VisitorException e) {
+            return false;
         }
-        
-        // Validate task exists
-        if (task == null) {
-            throw new TaskException("Task with ID " + taskId + " not found.");
-        }
-        
-        // Ensure user can only mark their own tasks
-        if (!task.getAssignedTo().equals(username)) {
-            throw new VisitorException("You can only mark tasks assigned to you as completed.");
+    }
+    
+    private void report(int rate, long durationNanos, WorkerStats[] stats, AtomicLongArray perSecond) {
+        double seconds = durationNanos / 1e9;
+        System.out.printf("%-14s %10s %8s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "errors", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us");
+        LatencyHistogram all = new LatencyHistogram();
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            LatencyHistogram merged = new LatencyHistogram();
+            long errors = 0;
+            for (WorkerStats worker : stats) {
+                merged.add(worker.latencies[op]);
+                errors += worker.errors[op];
+            }
+            all.add(merged);
+            print(OPERATIONS[op], merged, errors, seconds);
         }
+        print("all", all, -1, seconds);
         
-        // Check if already completed
-        if (task.isCompleted()) {
-            throw new VisitorException("Task is already marked as completed.");
+        long peak = 0;
+        for (int i = 0; i < perSecond.length(); i++) {
+            peak = Math.max(peak, perSecond.get(i));
         }
-        
-        // Mark as completed
-        task.setCompleted(true);
-        return true;
+        System.out.printf("%nTarget rate: %s, achieved: %.0f ops/s, peak one-second throughput: %d ops/s%n",
+            rate == 0 ? "unlimited" : rate + " ops/s", all.getCount() / seconds, peak);
+        System.out.println("Sessions: " + sessions.length + " (" + visitorCount + " visitors), tasks stored: " + taskDAO.getTaskCount()
+            + ", users registered: " + userDAO.getUserCount());
     }
     
-    /**
-     * Get total number of tasks
-     */
-    public int getTaskCount() {
-        return taskCount;
+    private static void print(String name, LatencyHistogram histogram, long errors, double seconds) {
+        System.out.printf("%-14s %10d %8s %10.0f %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getCount(),
+            errors < 0 ? "" : String.valueOf(errors), histogram.getCount() / seconds,
+            histogram.valueAtPercentile(50) / 1e3, histogram.valueAtPercentile(99) / 1e3,
+            histogram.valueAtPercentile(99.9) / 1e3, histogram.getMax() / 1e3);
     }
+}
+
+/**
+ * Multi-threaded stress test for ConcurrentTaskDAO
+ * Usage: java ConcurrencyStressTest [writers 8] [tasks per writer 5000] [readers 4]
+ * Writers add, update and complete their own tasks while readers run every kind of
+ * query on the same store, once over the heap and once over the off-heap TaskDAOImpl.
+ * Checks that no read fails or returns a task mixing fields of two versions (a torn
+ * read, e.g. the title of an update with the text from before it), that each writer's tasks
+ * get increasing unique IDs, that nothing is lost, and that exactly one of several
+ * racing markTaskAsCompleted calls wins. Stops with an error at the first broken rule.
+ */
+class ConcurrencyStressTest {
+    private static final int RACERS = 16;
     
-    /**
-     * Sprint 5: Sort tasks by completion date
-     */
-    public Task[] getTasksSortedByDate(boolean ascending) {
-        // Create a copy to avoid modifying original array
-        Task[] sortedTasks = new Task[taskCount];
-        for (int i = 0; i < taskCount; i++) {
-            sortedTasks[i] = tasks[i];
-        }
+    public static void main(String[] args) throws Exception {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int tasksPerWriter = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        run("heap", new TaskDAOImpl(), writers, tasksPerWriter, readers);
+        run("off-heap", new TaskDAOImpl(16, new OffHeapTextArena()), writers, tasksPerWriter, readers);
+    }
+    
+    private static void run(String name, TaskDAOImpl store, int writers, int tasksPerWriter, int readers) throws Exception {
+        TaskDAO dao = new ConcurrentTaskDAO(store);
+        LocalDate due = LocalDate.now().plusDays(1);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong readRounds = new AtomicLong();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
         
-        for (int i = 0; i < taskCount - 1; i++) {
-            for (int j = 0; j < taskCount - i - 1; j++) {
-                boolean shouldSwap;
-                if (ascending) {
-                    // Ascending: swap if current is after next
-                    shouldSwap = sortedTasks[j].getCompletionDate().isAfter(sortedTasks[j + 1].getCompletionDate());
-                } else {
-                    // Descending: swap if current is before next
-                    shouldSwap = sortedTasks[j].getCompletionDate().isBefore(sortedTasks[j + 1].getCompletionDate());
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            Random random = new Random(r);
+            readerThreads[r] = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        int count = dao.getTaskCount();
+                        if (count > 0) {
+                            check(dao.getTaskById(1 + random.nextInt(count))); // Nothing is deleted, so every ID exists
+                        }
+                        String writer = "writer" + random.nextInt(writers);
+                        check(dao.searchTasks(writer + " task"));
+                        check(dao.getTasksByAssignee(writer));
+                        check(dao.getIncompleteTasks(writer));
+                        check(dao.getTasksDueBetween(due, due.plusDays(1), null, TaskStatus.ALL));
+                        check(dao.getAllTasksPage(random.nextInt(count + 1), 50).getTasks());
+                        dao.checkDuplicates();
+                        readRounds.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
                 }
-                
-                if (shouldSwap) {
-                    Task temp = sortedTasks[j];
-                    sortedTasks[j] = sortedTasks[j + 1];
-                    sortedTasks[j + 1] = temp;
+            }, "reader-" + r);
+            readerThreads[r].start();
+        }
+        
+        int[][] ids = new int[writers][tasksPerWriter];
+        Thread[] writerThreads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writerThreads[w] = new Thread(() -> {
+                String assignee = "writer" + writer;
+                try {
+                    for (int i = 0; i < tasksPerWriter; i++) {
+                        String title = assignee + " task " + i;
+                        dao.addTask(title, "body of " + title, assignee, due);
+                        Task[] added = dao.getTasksByAssigneePage(assignee, i == 0 ? 0 : ids[writer][i - 1], 1).getTasks();
+                        ids[writer][i] = added[0].getTaskId();
+                        if (i % 4 == 0) {
+                            dao.updateTask(ids[writer][i], title + " v2", "body of " + title + " v2", assignee, due.plusDays(1));
+                        }
+                        if (i % 8 == 0) {
+                            dao.markTaskAsCompleted(ids[writer][i], assignee);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
                 }
-            }
+            }, "writer-" + w);
+            writerThreads[w].start();
+        }
+        for (Thread thread : writerThreads) {
+            thread.join();
+        }
+        stop.set(true);
+        for (Thread thread : readerThreads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException(name + ": " + failures.size() + " thread(s) failed", failures.peek());
         }
-        return sortedTasks;
-    }
-    
-    /**
-     * Check for duplicate task titles
-     * Uses nested loops to compare all pairs
-     */
-    public void checkDuplicates() {
-        boolean foundDuplicate = false;
-        System.out.println("\n========================================");
-        System.out.println("      DUPLICATE TASKS CHECK");
-        System.out.println("========================================");
         
-        // Compare each task with all tasks after it
-        for (int i = 0; i < taskCount; i++) {
-            for (int j = i + 1; j < taskCount; j++) {
-                if (tasks[i].getTaskTitle().equalsIgnoreCase(tasks[j].getTaskTitle())) {
-                    System.out.println("Duplicate: Task " + tasks[i].getTaskId() + " and " + tasks[j].getTaskId());
-                    foundDuplicate = true;
+        // Every add got its own ID, in order per writer, and none went missing
+        BitSet seen = new BitSet();
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < tasksPerWriter; i++) {
+                if (i > 0 && ids[w][i] <= ids[w][i - 1]) {
+                    throw new IllegalStateException(name + ": writer " + w + " got IDs out of order");
+                }
+                if (seen.get(ids[w][i])) {
+                    throw new IllegalStateException(name + ": ID " + ids[w][i] + " handed out twice");
                 }
+                seen.set(ids[w][i]);
             }
         }
+        int total = writers * tasksPerWriter;
+        if (dao.getTaskCount() != total || seen.nextClearBit(1) != total + 1) {
+            throw new IllegalStateException(name + ": expected " + total + " tasks, found " + dao.getTaskCount());
+        }
+        check(dao.getAllTasks());
         
-        if (!foundDuplicate) {
-            System.out.println("No duplicate tasks found!");
+        // Racing completions of one task: exactly one may succeed
+        dao.addTask("race", "body of race", "racer", due);
+        int raceId = total + 1;
+        AtomicInteger wins = new AtomicInteger();
+        Thread[] racers = new Thread[RACERS];
+        for (int i = 0; i < racers.length; i++) {
+            racers[i] = new Thread(() -> {
+                try {
+                    dao.markTaskAsCompleted(raceId, "racer");
+                    wins.incrementAndGet();
+                } catch (VisitorException | TaskException e) {
+                    // Lost the race
+                }
+            });
+            racers[i].start();
+        }
+        for (Thread racer : racers) {
+            racer.join();
+        }
+        if (wins.get() != 1) {
+            throw new IllegalStateException(name + ": " + wins.get() + " racing completions succeeded");
+        }
+        System.out.println(name + ": " + total + " tasks from " + writers + " writers, "
+            + readRounds.get() + " read rounds from " + readers + " readers - OK");
+    }
+    
+    private static void check(Task... tasks) {
+        for (Task task : tasks) {
+            // Title, text and assignee are written together, so they must come from the same version
+            String title = task.getTaskTitle();
+            String text = task.getTaskText();
+            if (!text.equals("body of " + title)
+                    || task.getAssignedTo() == null || !title.startsWith(task.getAssignedTo() + " ")) {
+                throw new IllegalStateException("Task " + task.getTaskId() + " has title \"" + title + "\", text \"" + text + "\" and assignee " + task.getAssignedTo());
+            }
         }
-        System.out.println("========================================");
     }
 }
 
@@ -674,10 +7456,20 @@ class TaskDAOImpl implements TaskDAO {
  */
 public class TodoManagerSprint5 {
     static Scanner scanner = new Scanner(System.in);
-    static UserDAO userDAO = new UserDAOImpl(100);  // User database
-    static TaskDAO taskDAO = new TaskDAOImpl(100);  // Task database
+    static final String DATA_DIR = System.getProperty("todo.dataDir", "todo-data"); // Where users and tasks are saved
+    static final String FSYNC_POLICY = System.getProperty("todo.fsync", "EVERY_WRITE"); // See FsyncPolicy
+    static final boolean OFF_HEAP_TEXT = Boolean.getBoolean("todo.offHeapText"); // Keep task text in an OffHeapTextArena
+    static final boolean MAPPED_TASKS = Boolean.getBoolean("todo.mappedTasks"); // Serve tasks from tasks.mapped (MappedTaskDAO, saved on exit only)
+    static final int PARALLEL_THRESHOLD = Integer.getInteger("todo.parallelThreshold", TaskDAOImpl.DEFAULT_PARALLEL_THRESHOLD); // Scan size that goes parallel
+    static final boolean DAO_METRICS = Boolean.parseBoolean(System.getProperty("todo.metrics", "false")); // Publish DAO call metrics over JMX
+    static final int METRICS_SAMPLE_EVERY = Integer.getInteger("todo.metricsSampleEvery", DaoMetrics.DEFAULT_SAMPLE_EVERY); // Time one DAO call in this many
+    static DurableUserDAO userStore;                 // Saved users, opened in main
+    static Closeable taskStore;                      // Saved tasks, opened in main
+    private static boolean storesClosed;             // Guarded by the class lock
+    static UserDAO userDAO;                          // User database (grows as needed)
+    static TaskDAO taskDAO;                          // Task database (grows as needed, thread-safe)
     static User currentUser = null;                  // Currently logged in user
-    static DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    static final int PAGE_SIZE = 10;                 // Tasks shown per page in list views
     
     /**
      * Main method - Entry point of application
@@ -688,6 +7480,16 @@ public class TodoManagerSprint5 {
         System.out.println("  Welcome to Todo Manager - Sprint 5");
         System.out.println("========================================\n");
         
+        // Load saved users and tasks
+        try {
+            openStores();
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error: could not open data files in " + DATA_DIR + ": " + e.getMessage());
+            return;
+        }
+        // Also snapshot when the program ends any other way (Ctrl+C, end of input, an error)
+        Runtime.getRuntime().addShutdownHook(new Thread(TodoManagerSprint5::closeStores, "close-stores"));
+        
         boolean running = true;
         
         // OUTER LOOP - allows logout and re-login
@@ -703,6 +7505,7 @@ public class TodoManagerSprint5 {
                 } else if (authChoice == 2) {
                     login();
                 } else if (authChoice == 0) {
+                    closeStores();
                     System.out.println("Goodbye!");
                     scanner.close();
                     return;
@@ -714,7 +7517,7 @@ public class TodoManagerSprint5 {
             // Main application loop - show menu based on user type
             int choice = -1;
             while (choice != 0 && currentUser != null) {  
-                if (currentUser.getUserType().equals("client")) {
+                if (currentUser.getRole() == UserRole.CLIENT) {
                     displayClientMenu();
                 } else {
                     displayVisitorMenu();
@@ -736,6 +7539,74 @@ public class TodoManagerSprint5 {
         scanner.close();
     }
     
+    /**
+     * Open the saved user and task stores in DATA_DIR
+     * Anything saved by an earlier run is loaded back
+     */
+    static void openStores() throws IOException {
+        FsyncPolicy policy = FsyncPolicy.valueOf(FSYNC_POLICY.trim().toUpperCase(Locale.ROOT));
+        Path directory = Paths.get(DATA_DIR);
+        userStore = new DurableUserDAO(directory, policy);
+        TaskDAO store;
+        try {
+            store = MAPPED_TASKS ? openMappedTasks(directory) : openDurableTasks(directory, policy);
+        } catch (IOException e) {
+            userStore.close();
+            throw e;
+        }
+        taskStore = (Closeable) store;
+        userDAO = userStore;
+        taskDAO = new ConcurrentTaskDAO(store);
+        if (DAO_METRICS) {
+            InstrumentedUserDAO users = new InstrumentedUserDAO(userDAO, METRICS_SAMPLE_EVERY);
+            InstrumentedTaskDAO tasks = new InstrumentedTaskDAO(taskDAO, METRICS_SAMPLE_EVERY);
+            try {
+                users.getMetrics().register();
+                tasks.getMetrics().register();
+            } catch (JMException e) {
+                System.out.println("Warning: could not publish DAO metrics over JMX: " + e.getMessage());
+            }
+            userDAO = users;
+            taskDAO = tasks;
+        }
+    }
+    
+    private static DurableTaskDAO openDurableTasks(Path directory, FsyncPolicy policy) throws IOException {
+        TaskDAOImpl store = new TaskDAOImpl(16, OFF_HEAP_TEXT ? new OffHeapTextArena() : null);
+        store.setParallelThreshold(PARALLEL_THRESHOLD);
+        return new DurableTaskDAO(directory, policy, DurableTaskDAO.DEFAULT_SNAPSHOT_EVERY, store);
+    }
+    
+    /**
+     * Map tasks.mapped, writing an empty one first if there is none yet
+     * It is a separate file - tasks saved by DurableTaskDAO are not carried over
+     */
+    private static MappedTaskDAO openMappedTasks(Path directory) throws IOException {
+        Path path = directory.resolve("tasks.mapped");
+        if (!Files.exists(path)) {
+            MappedTaskFile.write(path, new Task[0], 1);
+        }
+        return new MappedTaskDAO(path);
+    }
+    
+    /**
+     * Snapshot and close the stores so the next start doesn't need to replay the logs
+     * Runs once, from the exit menu or the shutdown hook, whichever comes first
+     */
+    static synchronized void closeStores() {
+        if (storesClosed) {
+            return;
+        }
+        storesClosed = true;
+        for (Closeable store : new Closeable[] { userStore, taskStore }) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.out.println("Warning: could not snapshot data files: " + e.getMessage());
+            }
+        }
+    }
+    
     /**
      * Display authentication menu (Register/Login/Exit)
      */
@@ -820,6 +7691,8 @@ public class TodoManagerSprint5 {
         System.out.println("6. View Tasks Sorted by Date");
         System.out.println("7. Check Duplicates");
         System.out.println("8. View All Users");
+        System.out.println("9. View Tasks Due Between Dates");
+        System.out.println("10. View Overdue Tasks");
         System.out.println("0. Logout");
         System.out.println("========================================");
     }
@@ -837,6 +7710,8 @@ public class TodoManagerSprint5 {
         System.out.println("3. Mark Task Completed");
         System.out.println("4. View Completed Tasks");
         System.out.println("5. View Incomplete Tasks");
+        System.out.println("6. View Tasks Due Soon");
+        System.out.println("7. View My Overdue Tasks");
         System.out.println("0. Logout");
         System.out.println("========================================");
     }
@@ -845,7 +7720,7 @@ public class TodoManagerSprint5 {
      * Route menu choice to appropriate handler based on user type
      */
     static void handleMenuChoice(int choice) {
-        if (currentUser.getUserType().equals("client")) {
+        if (currentUser.getRole() == UserRole.CLIENT) {
             handleClientChoice(choice);
         } else {
             handleVisitorChoice(choice);
@@ -857,6 +7732,7 @@ public class TodoManagerSprint5 {
      * Sprint 5: Uses try-catch for exception handling
      */
     static void handleClientChoice(int choice) {
+        MenuActionEvent event = MenuActionEvent.start("client", choice, currentUser.getUsername());
         try {
             if (choice == 1) {
                 addTask();
@@ -871,9 +7747,13 @@ public class TodoManagerSprint5 {
             } else if (choice == 6) {
                 viewTasksSortedByDate();
             } else if (choice == 7) {
-                taskDAO.checkDuplicates();
+                checkDuplicates();
             } else if (choice == 8) {
                 viewAllUsers();
+            } else if (choice == 9) {
+                viewTasksDueBetween();
+            } else if (choice == 10) {
+                viewOverdueTasks(null);
             } else if (choice == 0) {
                 // Logout - return to authentication menu
                 System.out.println("Logging out...");
@@ -883,6 +7763,8 @@ public class TodoManagerSprint5 {
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+        } finally {
+            event.finish();
         }
     }
     
@@ -891,6 +7773,7 @@ public class TodoManagerSprint5 {
      * Sprint 5: Uses try-catch for exception handling
      */
     static void handleVisitorChoice(int choice) {
+        MenuActionEvent event = MenuActionEvent.start("visitor", choice, currentUser.getUsername());
         try {
             if (choice == 1) {
                 viewMyTasks();
@@ -902,6 +7785,10 @@ public class TodoManagerSprint5 {
                 viewCompletedTasks();
             } else if (choice == 5) {
                 viewIncompleteTasks();
+            } else if (choice == 6) {
+                viewMyTasksDueSoon();
+            } else if (choice == 7) {
+                viewOverdueTasks(currentUser.getUsername());
             } else if (choice == 0) {
                 // Logout - return to authentication menu
                 System.out.println("Logging out...");
@@ -911,6 +7798,8 @@ public class TodoManagerSprint5 {
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+        } finally {
+            event.finish();
         }
     }
     
@@ -937,11 +7826,12 @@ public class TodoManagerSprint5 {
         }
         
         System.out.print("Assign to username: ");
-        String assignedTo = scanner.nextLine();
+        User assignee = userDAO.findUser(scanner.nextLine());
         
-        if (!userDAO.userExists(assignedTo)) {
+        if (assignee == null) {
             throw new ClientException("User does not exist!");
         }
+        String assignedTo = assignee.getUsername(); // Registered spelling, whatever case was typed
         
         System.out.print("Completion date (DD-MM-YYYY): ");
         String dateStr = scanner.nextLine();
@@ -955,9 +7845,9 @@ public class TodoManagerSprint5 {
      * VIEW: Display all tasks (Client only)
      */
     static void viewAllTasks() {
-        Task[] allTasks = taskDAO.getAllTasks();
+        TaskCursor allTasks = new TaskCursor(taskDAO::getAllTasksPage, PAGE_SIZE);
         
-        if (allTasks.length == 0) {
+        if (!allTasks.hasNext()) {
             System.out.println("No tasks available.");
             return;
         }
@@ -965,12 +7855,7 @@ public class TodoManagerSprint5 {
         System.out.println("========================================");
         System.out.println("           ALL TASKS");
         System.out.println("========================================");
-        for (int i = 0; i < allTasks.length; i++) {
-            System.out.println(allTasks[i]);
-            if (i < allTasks.length - 1) {
-                System.out.println("----------------------------------------");
-            }
-        }
+        printPages(allTasks, "----------------------------------------");
         System.out.println("========================================");
     }
     
@@ -978,9 +7863,10 @@ public class TodoManagerSprint5 {
      * VISITOR FEATURE: View only tasks assigned to current visitor
      */
     static void viewMyTasks() {
-        Task[] myTasks = taskDAO.getTasksByAssignee(currentUser.getUsername());
+        String username = currentUser.getUsername();
+        TaskCursor myTasks = new TaskCursor((after, size) -> taskDAO.getTasksByAssigneePage(username, after, size), PAGE_SIZE);
         
-        if (myTasks.length == 0) {
+        if (!myTasks.hasNext()) {
             System.out.println("No tasks assigned to you.");
             return;
         }
@@ -988,12 +7874,7 @@ public class TodoManagerSprint5 {
         System.out.println("========================================");
         System.out.println("        MY ASSIGNED TASKS");
         System.out.println("========================================");
-        for (int i = 0; i < myTasks.length; i++) {
-            System.out.println(myTasks[i]);
-            if (i < myTasks.length - 1) {
-                System.out.println("----------------------------------------");
-            }
-        }
+        printPages(myTasks, "----------------------------------------");
         System.out.println("========================================");
     }
     
@@ -1027,11 +7908,12 @@ public class TodoManagerSprint5 {
         }
         
         System.out.print("Assign to: ");
-        String assignedTo = scanner.nextLine();
+        User assignee = userDAO.findUser(scanner.nextLine());
         
-        if (!userDAO.userExists(assignedTo)) {
+        if (assignee == null) {
             throw new ClientException("User does not exist!");
         }
+        String assignedTo = assignee.getUsername(); // Registered spelling, whatever case was typed
         
         System.out.print("Completion date (DD-MM-YYYY): ");
         String dateStr = scanner.nextLine();
@@ -1069,21 +7951,16 @@ public class TodoManagerSprint5 {
         System.out.print("Enter keyword: ");
         String keyword = scanner.nextLine();
         
-        Task[] results = taskDAO.searchTasks(keyword);
+        TaskCursor results = new TaskCursor((after, size) -> taskDAO.searchTasksPage(keyword, after, size), PAGE_SIZE);
         
         System.out.println("\n========================================");
         System.out.println("         SEARCH RESULTS");
         System.out.println("========================================");
         
-        if (results.length == 0) {
+        if (!results.hasNext()) {
             System.out.println("No tasks found.");
         } else {
-            for (int i = 0; i < results.length; i++) {
-                System.out.println(results[i]);
-                if (i < results.length - 1) {
-                    System.out.println("----------------------------------------");
-                }
-            }
+            printPages(results, "----------------------------------------");
         }
         System.out.println("========================================");
     }
@@ -1143,9 +8020,9 @@ public class TodoManagerSprint5 {
             for (int j = 0; j < myTasks.length - i - 1; j++) {
                 boolean shouldSwap;
                 if (sortChoice == 1) {
-                    shouldSwap = myTasks[j].getCompletionDate().isAfter(myTasks[j + 1].getCompletionDate());
+                    shouldSwap = myTasks[j].getCompletionDay() > myTasks[j + 1].getCompletionDay();
                 } else {
-                    shouldSwap = myTasks[j].getCompletionDate().isBefore(myTasks[j + 1].getCompletionDate());
+                    shouldSwap = myTasks[j].getCompletionDay() < myTasks[j + 1].getCompletionDay();
                 }
                 
                 if (shouldSwap) {
@@ -1202,20 +8079,16 @@ public class TodoManagerSprint5 {
      * Sprint 5 requirement
      */
     static void viewCompletedTasks() {
-        Task[] completed = taskDAO.getCompletedTasks(currentUser.getUsername());
+        String username = currentUser.getUsername();
+        TaskCursor completed = new TaskCursor((after, size) -> taskDAO.getCompletedTasksPage(username, after, size), PAGE_SIZE);
         
-        if (completed.length == 0) {
+        if (!completed.hasNext()) {
             System.out.println("No completed tasks.");
             return;
         }
         
         System.out.println("=== COMPLETED TASKS ===");
-        for (int i = 0; i < completed.length; i++) {
-            System.out.println(completed[i]);
-            if (i < completed.length - 1) {
-                System.out.println("----------");
-            }
-        }
+        printPages(completed, "----------");
     }
     
     /**
@@ -1223,22 +8096,143 @@ public class TodoManagerSprint5 {
      * Sprint 5 requirement
      */
     static void viewIncompleteTasks() {
-        Task[] incomplete = taskDAO.getIncompleteTasks(currentUser.getUsername());
+        String username = currentUser.getUsername();
+        TaskCursor incomplete = new TaskCursor((after, size) -> taskDAO.getIncompleteTasksPage(username, after, size), PAGE_SIZE);
         
-        if (incomplete.length == 0) {
+        if (!incomplete.hasNext()) {
             System.out.println("No incomplete tasks.");
             return;
         }
         
         System.out.println("=== INCOMPLETE TASKS ===");
-        for (int i = 0; i < incomplete.length; i++) {
-            System.out.println(incomplete[i]);
-            if (i < incomplete.length - 1) {
+        printPages(incomplete, "----------");
+    }
+    
+    /**
+     * CLIENT FEATURE: View tasks due in a date range
+     * Optional filters for assignee and completion status
+     */
+    static void viewTasksDueBetween() throws TaskException {
+        System.out.print("From date (DD-MM-YYYY): ");
+        LocalDate from = parseDate(scanner.nextLine());
+        
+        System.out.print("To date (DD-MM-YYYY): ");
+        LocalDate to = parseDate(scanner.nextLine());
+        
+        System.out.print("Assigned to (leave blank for all users): ");
+        String typed = scanner.nextLine().trim();
+        String assignee = null;
+        if (!typed.isEmpty()) {
+            User user = userDAO.findUser(typed);
+            if (user == null) {
+                System.out.println("User does not exist!");
+                return;
+            }
+            assignee = user.getUsername(); // Registered spelling, whatever case was typed
+        }
+        
+        TaskStatus status = askStatusFilter();
+        Task[] dueTasks = taskDAO.getTasksDueBetween(from, to, assignee, status);
+        
+        if (dueTasks.length == 0) {
+            System.out.println("No tasks due in that range.");
+            return;
+        }
+        
+        System.out.println("\n=== TASKS DUE " + DateCodec.format(DateCodec.toDay(from)) + " TO " + DateCodec.format(DateCodec.toDay(to)) + " ===");
+        for (int i = 0; i < dueTasks.length; i++) {
+            System.out.println(dueTasks[i]);
+            if (i < dueTasks.length - 1) {
+                System.out.println("----------------------------------------");
+            }
+        }
+    }
+    
+    /**
+     * VISITOR FEATURE: View my tasks due within the next N days
+     */
+    static void viewMyTasksDueSoon() throws TaskException {
+        int days = getIntInput("Show tasks due within how many days? ");
+        TaskStatus status = askStatusFilter();
+        Task[] dueTasks = taskDAO.getTasksDueWithinDays(days, currentUser.getUsername(), status);
+        
+        if (dueTasks.length == 0) {
+            System.out.println("No tasks due in the next " + days + " days.");
+            return;
+        }
+        
+        System.out.println("\n=== TASKS DUE IN THE NEXT " + days + " DAYS ===");
+        for (int i = 0; i < dueTasks.length; i++) {
+            System.out.println(dueTasks[i]);
+            if (i < dueTasks.length - 1) {
+                System.out.println("----------");
+            }
+        }
+    }
+    
+    /**
+     * View incomplete tasks past their completion date
+     * Clients see everyone's (assignee null), visitors only their own
+     */
+    static void viewOverdueTasks(String assignee) {
+        Task[] overdue = taskDAO.getOverdueTasks(assignee);
+        
+        if (overdue.length == 0) {
+            System.out.println("No overdue tasks.");
+            return;
+        }
+        
+        System.out.println("=== OVERDUE TASKS ===");
+        for (int i = 0; i < overdue.length; i++) {
+            System.out.println(overdue[i]);
+            if (i < overdue.length - 1) {
                 System.out.println("----------");
             }
         }
     }
     
+    /**
+     * Helper: Ask which completion status to include
+     */
+    static TaskStatus askStatusFilter() {
+        System.out.println("1. All Tasks");
+        System.out.println("2. Completed Only");
+        System.out.println("3. Incomplete Only");
+        int statusChoice = getIntInput("Choice: ");
+        if (statusChoice == 2) {
+            return TaskStatus.COMPLETED;
+        } else if (statusChoice == 3) {
+            return TaskStatus.INCOMPLETE;
+        }
+        return TaskStatus.ALL;
+    }
+    
+    /**
+     * CLIENT FEATURE: Check for tasks with duplicate titles
+     * The DAO builds the report, printing happens here
+     */
+    static void checkDuplicates() {
+        DuplicateReport report = taskDAO.checkDuplicates();
+        System.out.println("\n========================================");
+        System.out.println("      DUPLICATE TASKS CHECK");
+        System.out.println("========================================");
+        
+        DuplicateGroup[] groups = report.getGroups();
+        for (int i = 0; i < groups.length; i++) {
+            int[] ids = groups[i].getTaskIds();
+            String idList = "Task " + ids[0];
+            for (int j = 1; j < ids.length; j++) {
+                idList += (j == ids.length - 1 ? " and " : ", ") + ids[j];
+            }
+            System.out.println("Duplicate: " + idList + " (\"" + groups[i].getTitle() + "\")");
+        }
+        
+        if (!report.hasDuplicates()) {
+            System.out.println("No duplicate tasks found!");
+        }
+        System.out.println("========================================");
+    }
+    
     /**
      * CLIENT FEATURE: View all registered users
      */
@@ -1256,16 +8250,41 @@ public class TodoManagerSprint5 {
         }
     }
     
+    /**
+     * Helper: Print a cursor one page at a time
+     * Asks before loading each further page, so large result sets are never fully loaded
+     */
+    static void printPages(TaskCursor cursor, String separator) {
+        boolean first = true;
+        while (cursor.hasNext()) {
+            Task[] page = cursor.nextPage();
+            for (int i = 0; i < page.length; i++) {
+                if (!first) {
+                    System.out.println(separator);
+                }
+                System.out.println(page[i]);
+                first = false;
+            }
+            
+            if (cursor.hasMore()) {
+                System.out.print("\n-- Press Enter for more, or Q to stop -- ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                    return;
+                }
+            }
+        }
+    }
+    
     /**
      * Helper: Parse date string to LocalDate
      * Sprint 5: Throws TaskException for invalid format
      */
     static LocalDate parseDate(String dateStr) throws TaskException {
-        try {
-            return LocalDate.parse(dateStr, dateFormatter);
-        } catch (DateTimeParseException e) {
+        int day = DateCodec.parse(dateStr);
+        if (day == DateCodec.INVALID) {
             throw new TaskException("Invalid date format. Use DD-MM-YYYY.");
         }
+        return DateCodec.toDate(day);
     }
     
     /**